@@ -0,0 +1,76 @@
+package com.mg.core.config;
+
+import com.mg.core.service.SseManager;
+import com.mg.core.service.sse.LocalSseBroker;
+import com.mg.core.service.sse.RedisSseBroker;
+import com.mg.core.service.sse.SseAuthenticator;
+import com.mg.core.service.sse.SseBroker;
+import com.mg.core.service.sse.netty.NettySseServer;
+import com.mg.redis.utils.RedisUtil;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * packageName com.mg.core.config
+ * SSE 分发配置
+ *
+ * @author mj
+ * @className SseAutoConfiguration
+ * @date 2026/10/19
+ * @description 引入 common-redis 且 sse.cluster.enable=true 时使用 redis 集群分发，否则单机分发；
+ * 引入 netty 且 sse.netty.enable=true 时额外启动 netty SSE 服务
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(SseProperties.class)
+public class SseAutoConfiguration {
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "com.mg.redis.utils.RedisUtil")
+    @ConditionalOnProperty(name = "sse.cluster.enable", havingValue = "true")
+    static class RedisBrokerConfiguration {
+
+        /**
+         * 依赖 RedisUtil 保证其静态客户端在 broker 绑定订阅前已初始化
+         */
+        @Bean
+        @ConditionalOnMissingBean(SseBroker.class)
+        public SseBroker redisSseBroker(RedisUtil redisUtil, SseProperties properties) {
+            SseProperties.Cluster cluster = properties.getCluster();
+            return new RedisSseBroker(cluster.isStreamBacked(), cluster.getStreamMaxLen());
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.netty.channel.Channel")
+    @ConditionalOnProperty(name = "sse.netty.enable", havingValue = "true")
+    static class NettyServerConfiguration {
+
+        /**
+         * netty 传输不经过 spring mvc 的鉴权拦截器，没有 SseAuthenticator 时拒绝启动，不以匿名方式开放
+         */
+        @Bean
+        @ConditionalOnMissingBean(NettySseServer.class)
+        public NettySseServer nettySseServer(SseManager sseManager, SseProperties properties,
+                                             ObjectProvider<SseAuthenticator> authenticator) {
+            SseAuthenticator auth = authenticator.getIfAvailable();
+            if (auth == null) {
+                throw new IllegalStateException("sse.netty.enable=true 时需要提供 SseAuthenticator 校验握手凭证");
+            }
+            SseProperties.Netty netty = properties.getNetty();
+            return new NettySseServer(netty.getPort(), netty.getPath(), netty.getWorkerThreads(), netty.isCompression(),
+                    sseManager, auth);
+        }
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(SseBroker.class)
+    public SseBroker localSseBroker() {
+        return new LocalSseBroker();
+    }
+}
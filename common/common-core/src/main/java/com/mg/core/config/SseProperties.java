@@ -0,0 +1,158 @@
+package com.mg.core.config;
+
+import com.mg.core.service.sse.SseMailbox;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * packageName com.mg.core.config
+ * SSE 配置
+ *
+ * @author mj
+ * @className SseProperties
+ * @date 2026/10/19
+ * @description sse 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "sse")
+public class SseProperties {
+
+    /**
+     * 每个 topic 保留的最近事件数，用于 Last-Event-ID 回放
+     */
+    private int replayCapacity = 256;
+
+    /**
+     * topic 无订阅者后回放缓冲保留时长（毫秒）
+     */
+    private long replayIdleMillis = 5 * 60 * 1000L;
+
+    /**
+     * 单个客户端发送队列容量，慢客户端最多积压该数量的消息
+     */
+    private int mailboxCapacity = 256;
+
+    /**
+     * 发送队列满时的处理策略；增量 topic 的消息不丢弃，队列满时合并为全量快照
+     */
+    private SseMailbox.OverflowPolicy overflowPolicy = SseMailbox.OverflowPolicy.DROP_OLDEST;
+
+    /**
+     * 分发日志采样率：每多少条消息输出一条日志（不含消息内容）
+     */
+    private int logSampleRate = 1000;
+
+    /**
+     * 增量模式 topic：消息为 JSON 全量状态，下发时转为 JSON Merge Patch，新连接先收到一次全量快照
+     */
+    private List<String> deltaTopics = new ArrayList<>();
+
+    /**
+     * 连接准入
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * 握手线程池
+     */
+    private Handshake handshake = new Handshake();
+
+    /**
+     * 集群分发
+     */
+    private Cluster cluster = new Cluster();
+
+    /**
+     * netty 传输
+     */
+    private Netty netty = new Netty();
+
+    @Data
+    public static class Admission {
+        /**
+         * 本节点最大连接数，0 表示不限制
+         */
+        private int maxConnections = 0;
+
+        /**
+         * 单个用户最大连接数，0 表示不限制；未指定用户时按 clientId 计
+         */
+        private int maxConnectionsPerUser = 0;
+
+        /**
+         * 连接建立时下发的重连间隔（毫秒）
+         */
+        private long retryMillis = 3000;
+
+        /**
+         * 重连间隔随机抖动上限（毫秒）
+         */
+        private long retryJitterMillis = 2000;
+
+        /**
+         * 被拒绝的连接下发的重连间隔（毫秒），同样叠加抖动
+         */
+        private long rejectRetryMillis = 10000;
+
+        /**
+         * 节点停机时关闭连接前下发的重连间隔分散窗口（毫秒），避免所有客户端同时重连到其它节点
+         */
+        private long shutdownSpreadMillis = 30000;
+    }
+
+    @Data
+    public static class Handshake {
+        /**
+         * 登记与移除连接的线程数；这两步会访问 redis，不在 netty event loop 上执行
+         */
+        private int threads = 8;
+
+        /**
+         * 等待执行的握手上限，超过后 netty 握手直接返回 503
+         */
+        private int queueCapacity = 1024;
+    }
+
+    @Data
+    public static class Cluster {
+        /**
+         * 是否通过 redis 跨节点分发
+         */
+        private boolean enable = false;
+
+        /**
+         * 是否把 topic 事件写入 redis stream，客户端重连到其它节点时也能回放
+         */
+        private boolean streamBacked = false;
+
+        /**
+         * 每个 topic 的 stream 近似最大长度
+         */
+        private int streamMaxLen = 1000;
+    }
+
+    @Data
+    public static class Netty {
+        /**
+         * 是否启动 netty SSE 服务，与 servlet SseEmitter 可同时使用
+         */
+        private boolean enable = false;
+
+        private int port = 8081;
+
+        private String path = "/sse";
+
+        /**
+         * worker 线程数，0 表示 netty 默认（核数 * 2）
+         */
+        private int workerThreads = 0;
+
+        /**
+         * 是否按客户端 Accept-Encoding 协商 gzip/deflate 压缩事件流（按连接压缩，会增加 CPU 开销）
+         */
+        private boolean compression = false;
+    }
+}
@@ -45,6 +45,7 @@ public enum ErrorCode {
     REQUEST_ENTITY_TOO_LARGE(413, "请求实体过大"),
     REQUEST_URI_TOO_LONG(414, "请求的URI过长"),
     UNSUPPORTED_TYPE(415, "不支持的数据类型"),
+    TOO_MANY_REQUESTS(429, "请求过于频繁，请稍后重试"),
 
     /* 5xx - 服务端错误 */
     INTERNAL_SERVER_ERROR(500, "服务器内部错误"),
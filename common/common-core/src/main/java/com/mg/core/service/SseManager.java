@@ -1,18 +1,45 @@
 package com.mg.core.service;
 
 
+import com.mg.core.config.SseProperties;
+import com.mg.core.constant.ErrorCode;
+import com.mg.core.exception.ServerException;
+import com.mg.core.service.sse.SseAdmission;
+import com.mg.core.service.sse.SseBroker;
+import com.mg.core.service.sse.ServletSseConnection;
+import com.mg.core.service.sse.SseClient;
+import com.mg.core.service.sse.SseConnection;
+import com.mg.core.service.sse.SseDeltaEncoder;
+import com.mg.core.service.sse.SseDelivery;
+import com.mg.core.service.sse.SseEvent;
+import com.mg.core.service.sse.SseEventLog;
+import com.mg.core.service.sse.SseFrame;
+import com.mg.core.service.sse.SseHeartbeatWheel;
+import com.mg.core.service.sse.SseMailbox;
+import com.mg.core.service.sse.SseMetrics;
+import com.mg.core.service.sse.SseTopicIndex;
+import com.mg.core.utils.IdGenUtil;
 import com.mg.core.utils.ServletUtil;
 import com.mg.core.utils.StringUtil;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * packageName com.mg.core.service
@@ -33,18 +60,71 @@ public class SseManager {
     private static final Long DEFAULT_TIMEOUT = 0L;
     private static final String DEFAULT_TOPIC = "SYS_MSG_TOPIC";
     private static final long HEARTBEAT_INTERVAL = 15;
+    /**
+     * 心跳时间轮槽数，每秒检查一个槽
+     */
+    private static final int HEARTBEAT_SLOTS = 15;
+    /**
+     * 预编码的心跳注释帧，所有连接共享
+     */
+    private static final SseFrame HEARTBEAT_FRAME = SseFrame.comment("ping");
+    private static final long PRUNE_INTERVAL = 60;
+    private static final String HEARTBEAT_KEY = "__heartbeat";
+    private static final String RETRY_KEY = "__retry";
+    /**
+     * 单个客户端每次最多连续写出的消息数，超过后重新调度，避免慢客户端长期占用线程
+     */
+    private static final int DRAIN_LIMIT = 64;
+    /**
+     * 扇出时每个线程池任务负责的连接数
+     */
+    private static final int FANOUT_BATCH_SIZE = 256;
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    /**
+     * 握手线程池已满时移除连接的重试间隔（毫秒）
+     */
+    private static final long REMOVE_RETRY_MILLIS = 1000;
 
     /**
-     * clientId -> SseEmitter
+     * clientId -> SseClient
+     */
+    private final Map<String, SseClient> clients = new ConcurrentHashMap<>();
+    /**
+     * topic -> 订阅客户端
+     */
+    private final SseTopicIndex topicIndex = new SseTopicIndex();
+    /**
+     * 增量模式 topic -> 编码器
+     */
+    private final Map<String, SseDeltaEncoder> deltaEncoders = new ConcurrentHashMap<>();
+    private final SseHeartbeatWheel heartbeatWheel = new SseHeartbeatWheel(HEARTBEAT_SLOTS, TimeUnit.SECONDS.toMillis(HEARTBEAT_INTERVAL));
+    private ScheduledExecutorService scheduler;
+    /**
+     * 登记与移除连接专用：有界队列，满时拒绝而不是由调用线程执行，避免 redis 访问落到 netty event loop 上
      */
-    private final Map<String, SseEmitter> clients = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor handshakeExecutor;
     /**
-     * clientId -> topic
+     * 按 topic 的投递统计
      */
-    private final Map<String, String> clientTopics = new ConcurrentHashMap<>();
+    private SseMetrics metrics;
 
     @Resource(name = "taskExecutorService")
     private ExecutorService executor;
+    /**
+     * 跨节点分发，单机部署为 LocalSseBroker
+     */
+    @Resource
+    private SseBroker broker;
+    @Resource
+    private SseProperties properties;
+    /**
+     * topic 最近事件，用于断线重连回放
+     */
+    private SseEventLog eventLog;
+    /**
+     * 节点与单用户连接数限制
+     */
+    private SseAdmission admission;
 
     /**
      * 创建连接
@@ -53,98 +133,666 @@ public class SseManager {
      * @return SseEmitter
      */
     public SseEmitter createConnection(String clientId, String topic) {
-        if (topic == null || topic.isBlank()) {
-            topic = DEFAULT_TOPIC;
-        }
+        return createConnection(clientId, topic == null || topic.isBlank() ? List.of() : List.of(topic));
+    }
+
+    /**
+     * 创建连接并订阅多个 topic，Last-Event-ID 取自当前请求头
+     *
+     * @param clientId 客户端 ID（建议用用户ID/UUID） topics 为空时订阅 SYS_MSG_TOPIC
+     * @return SseEmitter
+     */
+    public SseEmitter createConnection(String clientId, Collection<String> topics) {
+        HttpServletRequest request = ServletUtil.getCurrentHttpRequest();
+        return createConnection(clientId, topics, request == null ? null : request.getHeader(LAST_EVENT_ID_HEADER));
+    }
+
+    /**
+     * 创建连接并订阅多个 topic
+     *
+     * @param clientId    客户端 ID（建议用用户ID/UUID） topics 为空时订阅 SYS_MSG_TOPIC
+     * @param lastEventId 浏览器重连时带回的最后事件 ID，不为空时回放断开期间的 topic 事件
+     * @return SseEmitter
+     */
+    public SseEmitter createConnection(String clientId, Collection<String> topics, String lastEventId) {
+        return createConnection(clientId, null, topics, lastEventId);
+    }
+
+    /**
+     * 创建连接并订阅多个 topic，连接数按 userId 限制
+     *
+     * @param clientId    客户端 ID（同一用户多端登录时各端不同）
+     * @param userId      用户 ID，为空时按 clientId 计
+     * @param lastEventId 浏览器重连时带回的最后事件 ID，不为空时回放断开期间的 topic 事件
+     * @return SseEmitter；登记被拒绝（超过连接上限或 clientId 被其它用户占用）时返回只含重连间隔提示并立即结束的 SseEmitter
+     */
+    public SseEmitter createConnection(String clientId, String userId, Collection<String> topics, String lastEventId) {
         // 创建 SseEmitter
         SseEmitter emitter = new SseEmitter(DEFAULT_TIMEOUT);
-        clients.put(clientId, emitter);
-        clientTopics.put(clientId, topic);
-        // 连接完成/超时/异常时清理
+        ServletSseConnection connection = new ServletSseConnection(emitter);
+        SseClient client;
+        try {
+            client = register(clientId, userId, topics, lastEventId, connection);
+        } catch (ServerException e) {
+            // 浏览器 EventSource 遇到非 200 响应不再重连，这里正常结束流，让其按 retry 间隔退避后重试
+            try {
+                rejectFrame().writeTo(emitter);
+                emitter.complete();
+            } catch (IOException ex) {
+                emitter.completeWithError(ex);
+            }
+            return emitter;
+        }
+        // 连接完成/超时/异常时清理，只清理本连接，同 clientId 已换绑新连接时不影响新连接
         emitter.onCompletion(() -> {
-            removeClient(clientId);
+            removeClient(client, connection);
         });
         emitter.onTimeout(() -> {
             log.warn("客户端 {} 连接超时", clientId);
-            removeClient(clientId);
+            removeClient(client, connection);
         });
         emitter.onError(e -> {
             log.error("客户端 {} 连接异常: {}", clientId, e.getMessage());
-            removeClient(clientId);
+            removeClient(client, connection);
         });
-        log.info("客户端 {} 已连接，topic={}", clientId, topic);
         return emitter;
     }
 
     /**
-     * 单播
+     * 登记连接，servlet 与 netty 传输共用
+     *
+     * @param clientId    客户端 ID
+     * @param topics      订阅的 topic，为空时订阅 SYS_MSG_TOPIC
+     * @param lastEventId 浏览器重连时带回的最后事件 ID，可为空
+     * @param connection  传输层连接，断开时调用方需调用 removeClient(SseClient, SseConnection)
+     * @return SseClient
+     */
+    public SseClient register(String clientId, Collection<String> topics, String lastEventId, SseConnection connection) {
+        return register(clientId, null, topics, lastEventId, connection);
+    }
+
+    /**
+     * 登记连接；同一 clientId 已有连接时复用原 SseClient（队列、订阅与连接名额），换绑到新连接并关闭旧连接。
+     * 只有同一用户才能换绑，否则拿到他人 clientId 即可接管其连接与积压消息；匿名连接不能换绑已鉴权用户的连接，反之亦然。
+     * 匿名连接只凭 clientId 识别，clientId 应由服务端生成且不可猜测
+     *
+     * @param userId 用户 ID，必须来自服务端鉴权（servlet 由鉴权拦截器之后的 controller 传入，netty 由 SseAuthenticator 得出），
+     *               不能取客户端自报的参数；为空时为匿名连接，按 clientId 计
+     * @throws ServerException TOO_MANY_REQUESTS，超过节点或用户连接上限，调用方用 rejectFrame() 提示客户端退避；
+     *                         FORBIDDEN，clientId 已被其它用户的连接占用
+     */
+    public SseClient register(String clientId, String userId, Collection<String> topics, String lastEventId,
+                              SseConnection connection) {
+        if (topics == null || topics.isEmpty()) {
+            topics = List.of(DEFAULT_TOPIC);
+        }
+        boolean anonymous = StringUtil.isBlank(userId);
+        String owner = anonymous ? clientId : userId;
+        SseConnection[] replaced = new SseConnection[1];
+        boolean[] foreign = new boolean[1];
+        // 在 compute 中完成准入与换绑，与同 clientId 的并发握手、旧连接的移除互斥
+        SseClient client = clients.compute(clientId, (id, existing) -> {
+            if (existing != null) {
+                if (existing.isAnonymous() != anonymous || !owner.equals(existing.getUserId())) {
+                    foreign[0] = true;
+                    return existing;
+                }
+                replaced[0] = existing.rebind(connection);
+                return existing;
+            }
+            if (!admission.tryAcquire(owner)) {
+                return null;
+            }
+            return new SseClient(id, owner, anonymous, connection,
+                    new SseMailbox(properties.getMailboxCapacity(), properties.getOverflowPolicy()));
+        });
+        if (foreign[0]) {
+            log.warn("客户端 {} 连接被拒绝：已被其它用户的连接占用，请求用户 {}", clientId, owner);
+            throw new ServerException(ErrorCode.FORBIDDEN);
+        }
+        if (client == null) {
+            log.warn("客户端 {} 连接被拒绝：本节点连接数 {}，用户 {}", clientId, admission.connections(), owner);
+            throw new ServerException(ErrorCode.TOO_MANY_REQUESTS);
+        }
+        if (replaced[0] != null) {
+            // 同一 clientId 重连：旧连接关闭（其回调不会移除已换绑的客户端），不再请求的 topic 取消订阅
+            replaced[0].close();
+            for (String topic : List.copyOf(client.getTopics())) {
+                if (!topics.contains(topic)) {
+                    topicIndex.unsubscribe(client, topic);
+                    broker.topicChanged(topic);
+                }
+            }
+        }
+        List<String> replayTopics = new ArrayList<>(topics.size());
+        for (String topic : topics) {
+            subscribeTopic(client, topic);
+            if (!deltaEncoders.containsKey(topic)) {
+                replayTopics.add(topic);
+            }
+        }
+        broker.clientConnected(clientId);
+        if (replaced[0] == null) {
+            heartbeatWheel.add(client);
+        }
+        SseProperties.Admission config = properties.getAdmission();
+        enqueue(client, SseFrame.retry(SseAdmission.jitter(config.getRetryMillis(), config.getRetryJitterMillis())),
+                RETRY_KEY, SseMetrics.CONTROL);
+        executor.submit(() -> drain(client));
+        // 增量 topic 不回放，连接时下发的全量快照已包含断开期间的变化
+        if (StringUtil.isNotBlank(lastEventId) && !replayTopics.isEmpty()) {
+            replay(client, replayTopics, lastEventId);
+        }
+        log.info("客户端 {} 已{}，topics={}", clientId, replaced[0] == null ? "连接" : "重连", topics);
+        return client;
+    }
+
+    /**
+     * 在握手线程池中登记连接：登记过程包含 broker 的 redis 订阅、在线登记与历史回放查询，
+     * netty event loop 不能直接调用，否则会阻塞同一 loop 上的全部连接
+     *
+     * @return 超过连接上限时以 ServerException 异常完成
+     * @throws RejectedExecutionException 握手线程池已满，调用方应返回 503
+     */
+    public CompletableFuture<SseClient> registerAsync(String clientId, String userId, Collection<String> topics,
+                                                      String lastEventId, SseConnection connection) {
+        return handshakeAsync(() -> register(clientId, userId, topics, lastEventId, connection));
+    }
+
+    /**
+     * 在握手线程池中执行握手阶段的其它阻塞操作，如 netty 传输的凭证校验
+     *
+     * @throws RejectedExecutionException 握手线程池已满，调用方应返回 503
+     */
+    public <T> CompletableFuture<T> handshakeAsync(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, handshakeExecutor);
+    }
+
+    /**
+     * 拒绝连接时下发的重连提示，间隔带抖动，避免被拒绝的客户端同时重试
+     */
+    public SseFrame rejectFrame() {
+        SseProperties.Admission config = properties.getAdmission();
+        return SseFrame.retry(SseAdmission.jitter(config.getRejectRetryMillis(), config.getRetryJitterMillis()));
+    }
+
+    /**
+     * 连接恢复可写后继续写出积压的消息
+     */
+    public void resume(SseClient client) {
+        executor.submit(() -> drain(client));
+    }
+
+    /**
+     * 当前连接数
+     */
+    public int getConnectionCount() {
+        return admission.connections();
+    }
+
+    /**
+     * 追加订阅 topic
+     */
+    public boolean subscribe(String clientId, String topic) {
+        SseClient client = clients.get(clientId);
+        if (client == null) {
+            log.warn("客户端 {} 不存在", clientId);
+            return false;
+        }
+        if (subscribeTopic(client, topic)) {
+            executor.submit(() -> drain(client));
+        }
+        return true;
+    }
+
+    /**
+     * 取消订阅 topic
+     */
+    public boolean unsubscribe(String clientId, String topic) {
+        SseClient client = clients.get(clientId);
+        if (client == null) {
+            return false;
+        }
+        topicIndex.unsubscribe(client, topic);
+        broker.topicChanged(topic);
+        return true;
+    }
+
+    /**
+     * 单播：客户端不在本节点时经 broker 转发到所在节点
      */
     public void sendToClient(String clientId, String message) {
         if (StringUtil.isBlank(clientId)) {
             clientId = StringUtil.substring(ServletUtil.getCurrentHttpRequestHeader("authorization"), 7);
         }
-        SseEmitter emitter = clients.get(clientId);
-        if (emitter == null) {
+        if (!deliverClient(clientId, "message", message) && !broker.sendToClient(clientId, "message", message)) {
             log.warn("客户端 {} 不存在", clientId);
-            return;
         }
-        asyncSend(emitter, "message", message, clientId);
     }
 
     /**
-     * 分组广播
+     * 分组广播：本节点只遍历该 topic 的订阅者，消息只编码一次；其它节点经 broker 发布一次
      */
     public void sendToTopic(String topic, String message) {
-        log.info("向 topic={} 广播消息: {}", topic, message);
-        clientTopics.forEach((clientId, t) -> {
-            if (t.equals(topic)) {
-                sendToClient(clientId, message);
-            }
-        });
+        sendToTopic(topic, message, null);
+    }
+
+    /**
+     * 分组广播，带合并键：客户端队列中同一 key 尚未写出的消息只保留最新值，适合高频刷新的指标类数据
+     */
+    public void sendToTopic(String topic, String message, String conflateKey) {
+        SseEvent event = new SseEvent(IdGenUtil.nextId(), topic, "message", message, conflateKey);
+        deliverTopic(event);
+        broker.publishTopic(event);
     }
 
     /**
-     * 全局广播
+     * 队列满被丢弃的消息总数
+     */
+    public long getDroppedMessages() {
+        return metrics.totalDropped();
+    }
+
+    /**
+     * 被合并的消息总数
+     */
+    public long getConflatedMessages() {
+        return metrics.totalConflated();
+    }
+
+    /**
+     * 按 topic 的投递统计：发布/写出/失败/丢弃/合并次数、字节数与入队到写出的延迟分布
+     */
+    public SseMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 全局广播，消息只编码一次
      */
     public void broadcast(String message) {
-        log.info("全局广播消息: {}", message);
-        clients.keySet().forEach(clientId -> sendToClient(clientId, message));
+        deliverAll("message", message);
+        broker.broadcast("message", message);
     }
 
     /**
      * 移除客户端
      */
     public void removeClient(String clientId) {
-        clients.remove(clientId);
-        clientTopics.remove(clientId);
-        log.info("客户端 {} 已移除", clientId);
+        SseClient client = clients.get(clientId);
+        if (client != null) {
+            removeClient(client);
+        }
+    }
+
+    /**
+     * 移除客户端并关闭其当前连接
+     */
+    public void removeClient(SseClient client) {
+        if (clients.remove(client.getClientId(), client)) {
+            dispose(client);
+        }
     }
 
     /**
-     * 异步发送
+     * 连接断开时移除客户端；客户端已换绑到同 clientId 的新连接时忽略
      */
-    private void asyncSend(SseEmitter emitter, String event, String data, String clientId) {
+    public void removeClient(SseClient client, SseConnection connection) {
+        boolean[] removed = {false};
+        // 与 register 的换绑在同一个 compute 中互斥
+        clients.computeIfPresent(client.getClientId(), (id, current) -> {
+            if (current != client || current.getConnection() != connection) {
+                return current;
+            }
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            dispose(client);
+        }
+    }
+
+    /**
+     * 在握手线程池中移除，供 netty event loop 调用，原因同 registerAsync；线程池已满时稍后重试
+     */
+    public void removeClientAsync(SseClient client, SseConnection connection) {
+        try {
+            handshakeExecutor.execute(() -> removeClient(client, connection));
+        } catch (RejectedExecutionException e) {
+            // 连接已断开，晚一些移除只是多占一会名额
+            if (!scheduler.isShutdown()) {
+                scheduler.schedule(() -> removeClientAsync(client, connection), REMOVE_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void dispose(SseClient client) {
+        admission.release(client.getUserId());
+        broker.clientRemoved(client.getClientId());
+        heartbeatWheel.remove(client);
+        client.discard();
+        unsubscribeAll(client);
+        client.getConnection().close();
+        log.info("客户端 {} 已移除", client.getClientId());
+    }
+
+    private void unsubscribeAll(SseClient client) {
+        for (String topic : List.copyOf(client.getTopics())) {
+            topicIndex.unsubscribe(client, topic);
+            broker.topicChanged(topic);
+        }
+    }
+
+    /**
+     * 开启 topic 的增量模式：消息须为 JSON 全量状态，下发时转为与上一条的 merge patch
+     */
+    public void enableDelta(String topic) {
+        deltaEncoders.computeIfAbsent(topic, t -> new SseDeltaEncoder());
+    }
+
+    /**
+     * 订阅 topic；增量 topic 在编码器锁内订阅并入队当前快照，保证客户端先收到快照再收到后续补丁
+     *
+     * @return 是否入队了快照，调用方需调度写出
+     */
+    private boolean subscribeTopic(SseClient client, String topic) {
+        SseDeltaEncoder encoder = deltaEncoders.get(topic);
+        boolean queued = false;
+        if (encoder == null) {
+            topicIndex.subscribe(client, topic);
+        } else {
+            synchronized (encoder) {
+                topicIndex.subscribe(client, topic);
+                SseEvent snapshot = encoder.snapshot(topic);
+                if (snapshot != null) {
+                    SseFrame frame = snapshot.toFrame();
+                    count(client.enqueueDelta(frame, frame, topic), topic);
+                    queued = true;
+                }
+            }
+        }
+        broker.topicChanged(topic);
+        return queued;
+    }
+
+    private void deliverTopic(SseEvent event) {
+        SseDeltaEncoder encoder = deltaEncoders.get(event.topic());
+        if (encoder == null) {
+            eventLog.append(event);
+            fanOutTopic(event);
+            return;
+        }
+        // 编码与入队在同一把锁内，保证所有客户端按相同顺序收到补丁；
+        // 写出在释放锁之后提交，线程池饱和由调用线程执行写出时不占用编码器锁
+        List<SseClient> queued;
+        synchronized (encoder) {
+            SseEvent encoded = encoder.encode(event.id(), event.topic(), event.data(), event.key());
+            queued = enqueueDelta(encoded);
+        }
+        submitDrains(queued);
+    }
+
+    private void fanOutTopic(SseEvent event) {
+        submitDrains(enqueueTopic(event));
+    }
+
+    /**
+     * 入队 topic 事件
+     *
+     * @return 已入队的客户端，调用方需调度写出
+     */
+    private List<SseClient> enqueueTopic(SseEvent event) {
+        metrics.topic(event.topic()).published();
+        SseFrame frame = event.toFrame();
+        Set<SseClient> subscribers = topicIndex.subscribers(event.topic());
+        if (metrics.sample()) {
+            log.info("SSE 采样：topic={} 消息 {} 字节，本节点订阅者 {}", event.topic(), frame.size(), subscribers.size());
+        }
+        return enqueueAll(subscribers, frame, event.key(), event.topic());
+    }
+
+    /**
+     * 入队增量 topic 事件：补丁之间有依赖，不按键合并也不丢弃，队列满时由 SseMailbox 合并为全量快照
+     *
+     * @return 已入队的客户端，调用方需调度写出
+     */
+    private List<SseClient> enqueueDelta(SseEvent encoded) {
+        String topic = encoded.topic();
+        metrics.topic(topic).published();
+        SseFrame frame = encoded.toFrame();
+        SseFrame snapshot = SseDeltaEncoder.SNAPSHOT_EVENT.equals(encoded.event())
+                ? frame : deltaEncoders.get(topic).snapshot(topic).toFrame();
+        Set<SseClient> subscribers = topicIndex.subscribers(topic);
+        if (metrics.sample()) {
+            log.info("SSE 采样：topic={} 消息 {} 字节，本节点订阅者 {}", topic, frame.size(), subscribers.size());
+        }
+        List<SseClient> queued = new ArrayList<>(subscribers.size());
+        for (SseClient client : subscribers) {
+            count(client.enqueueDelta(frame, snapshot, topic), topic);
+            queued.add(client);
+        }
+        return queued;
+    }
+
+    private void deliverAll(String event, String data) {
+        metrics.topic(SseMetrics.BROADCAST).published();
+        SseFrame frame = SseFrame.of(event, data);
+        if (metrics.sample()) {
+            log.info("SSE 采样：全局广播 {} 字节，本节点连接 {}", frame.size(), clients.size());
+        }
+        fanOut(clients.values(), frame, null, SseMetrics.BROADCAST);
+    }
+
+    /**
+     * 回放 lastEventId 之后的 topic 事件：优先本节点缓冲，缓冲不能覆盖时查询 broker 持久化记录
+     * 回放在订阅之后进行，期间的新事件可能重复下发，客户端按事件 ID 去重
+     */
+    private void replay(SseClient client, Collection<String> topics, String lastEventId) {
+        long lastId;
+        try {
+            lastId = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            log.warn("客户端 {} Last-Event-ID 非法: {}", client.getClientId(), lastEventId);
+            return;
+        }
+        List<SseEvent> missed = new ArrayList<>();
+        for (String topic : topics) {
+            List<SseEvent> events = eventLog.since(topic, lastId);
+            if (events == null) {
+                events = broker.history(topic, lastId);
+            }
+            if (events == null) {
+                log.warn("客户端 {} topic={} 断开区间超出回放范围", client.getClientId(), topic);
+                continue;
+            }
+            missed.addAll(events);
+        }
+        if (missed.isEmpty()) {
+            return;
+        }
+        missed.sort(Comparator.comparingLong(SseEvent::id));
+        for (SseEvent event : missed) {
+            enqueue(client, event.toFrame(), null, event.topic());
+        }
+        executor.submit(() -> drain(client));
+        log.info("客户端 {} 回放 {} 条事件", client.getClientId(), missed.size());
+    }
+
+    private boolean deliverClient(String clientId, String event, String data) {
+        SseClient client = clients.get(clientId);
+        if (client == null) {
+            return false;
+        }
+        metrics.topic(SseMetrics.UNICAST).published();
+        enqueue(client, SseFrame.of(event, data), null, SseMetrics.UNICAST);
+        executor.submit(() -> drain(client));
+        return true;
+    }
+
+    /**
+     * 扇出：在调用线程按顺序入队（保证单个客户端的消息顺序），再按批次提交到线程池写出，任务数 = 连接数 / 批大小
+     */
+    private void fanOut(Collection<SseClient> targets, SseFrame frame, String key, String topic) {
+        submitDrains(enqueueAll(targets, frame, key, topic));
+    }
+
+    private List<SseClient> enqueueAll(Collection<SseClient> targets, SseFrame frame, String key, String topic) {
+        List<SseClient> queued = new ArrayList<>(targets.size());
+        for (SseClient client : targets) {
+            enqueue(client, frame, key, topic);
+            queued.add(client);
+        }
+        return queued;
+    }
+
+    private void submitDrains(List<SseClient> targets) {
+        for (int from = 0; from < targets.size(); from += FANOUT_BATCH_SIZE) {
+            submitBatch(targets.subList(from, Math.min(from + FANOUT_BATCH_SIZE, targets.size())));
+        }
+    }
+
+    private void submitBatch(List<SseClient> batch) {
         executor.submit(() -> {
-            try {
-                emitter.send(SseEmitter.event().name(event).data(data));
-                log.info("向客户端 {} 发送消息成功: {}", clientId, data);
-            } catch (IOException e) {
-                log.error("发送失败，移除客户端 {}: {}", clientId, e.getMessage());
-                removeClient(clientId);
+            for (SseClient client : batch) {
+                drain(client);
+            }
+        });
+    }
+
+    private void enqueue(SseClient client, SseFrame frame, String key, String topic) {
+        count(client.enqueue(frame, key, topic), topic);
+    }
+
+    private void count(SseMailbox.Offer offer, String topic) {
+        switch (offer) {
+            case DROPPED -> metrics.topic(topic).dropped();
+            case CONFLATED -> metrics.topic(topic).conflated();
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 写出客户端队列，失败时移除客户端（队列已清空，不再尝试剩余消息）
+     */
+    private void drain(SseClient client) {
+        try {
+            if (client.drain(DRAIN_LIMIT, metrics)) {
+                executor.submit(() -> drain(client));
+            }
+        } catch (IOException e) {
+            log.error("发送失败，移除客户端 {}: {}", client.getClientId(), e.getMessage());
+            removeClient(client);
+        }
+    }
+
+    /**
+     * 绑定 broker：其它节点的消息经此投递到本节点连接
+     */
+    @PostConstruct
+    private void bindBroker() {
+        metrics = new SseMetrics(properties.getLogSampleRate());
+        admission = new SseAdmission(properties.getAdmission().getMaxConnections(),
+                properties.getAdmission().getMaxConnectionsPerUser());
+        properties.getDeltaTopics().forEach(this::enableDelta);
+        eventLog = new SseEventLog(properties.getReplayCapacity(), properties.getReplayIdleMillis(),
+                !broker.coversAllTopics());
+        broker.bind(new SseDelivery() {
+            @Override
+            public boolean hasTopic(String topic) {
+                return !topicIndex.subscribers(topic).isEmpty();
+            }
+
+            @Override
+            public void deliverTopic(SseEvent event) {
+                SseManager.this.deliverTopic(event);
+            }
+
+            @Override
+            public void deliverAll(String event, String data) {
+                SseManager.this.deliverAll(event, data);
+            }
+
+            @Override
+            public boolean deliverClient(String clientId, String event, String data) {
+                return SseManager.this.deliverClient(clientId, event, data);
+            }
+
+            @Override
+            public void topicAttached(String topic) {
+                eventLog.attach(topic);
+            }
+
+            @Override
+            public void topicDetached(String topic) {
+                eventLog.detach(topic);
             }
         });
     }
 
+    @PostConstruct
+    private void startHandshakeExecutor() {
+        SseProperties.Handshake config = properties.getHandshake();
+        AtomicInteger idx = new AtomicInteger();
+        handshakeExecutor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()), r -> {
+            Thread t = new Thread(r, "sse-handshake-" + idx.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
     /**
-     * 定时心跳
+     * 定时心跳：时间轮每次只检查一个槽，只给超过心跳间隔未写出数据的连接发送预编码注释帧
      */
     @PostConstruct
     private void startHeartbeatTask() {
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sse-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        long tick = heartbeatWheel.tickMillis();
+        scheduler.scheduleAtFixedRate(() -> {
+            List<SseClient> due = heartbeatWheel.tick();
+            if (!due.isEmpty()) {
+                log.debug("SSE 心跳 {} 个连接", due.size());
+                // 心跳带合并键，慢客户端队列中最多只有一条心跳
+                fanOut(due, HEARTBEAT_FRAME, HEARTBEAT_KEY, SseMetrics.HEARTBEAT);
+            }
+        }, tick, tick, TimeUnit.MILLISECONDS);
         scheduler.scheduleAtFixedRate(() -> {
-            log.debug("执行 SSE 心跳检测");
-            clients.forEach((clientId, emitter) ->
-                    asyncSend(emitter, "ping", "keep-alive " + LocalDateTime.now(), clientId));
-        }, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.SECONDS);
+            Predicate<String> hosted = topic -> !topicIndex.subscribers(topic).isEmpty();
+            eventLog.prune(hosted);
+            metrics.prune(hosted);
+        }, PRUNE_INTERVAL, PRUNE_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 停机时主动关闭连接，关闭前下发分散在停机窗口内的重连间隔，客户端错峰重连到其它节点
+     */
+    @PreDestroy
+    private void closeConnections() {
+        SseProperties.Admission config = properties.getAdmission();
+        for (SseClient client : List.copyOf(clients.values())) {
+            try {
+                // 直接写出，不排在积压消息之后
+                client.getConnection().write(SseFrame.retry(
+                        SseAdmission.jitter(config.getRetryMillis(), config.getShutdownSpreadMillis())));
+            } catch (IOException e) {
+                log.debug("客户端 {} 停机提示发送失败: {}", client.getClientId(), e.getMessage());
+            }
+            removeClient(client);
+        }
+    }
+
+    @PreDestroy
+    private void stopHeartbeatTask() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (handshakeExecutor != null) {
+            handshakeExecutor.shutdown();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.mg.core.service.sse;
+
+/**
+ * packageName com.mg.core.service.sse
+ * 单机 broker
+ *
+ * @author mj
+ * @className LocalSseBroker
+ * @date 2026/10/19
+ * @description 没有其它节点，所有跨节点操作均为空操作
+ */
+public class LocalSseBroker implements SseBroker {
+
+    @Override
+    public void bind(SseDelivery delivery) {
+    }
+
+    @Override
+    public void topicChanged(String topic) {
+    }
+
+    @Override
+    public void clientConnected(String clientId) {
+    }
+
+    @Override
+    public void clientRemoved(String clientId) {
+    }
+
+    @Override
+    public void publishTopic(SseEvent event) {
+    }
+
+    @Override
+    public void broadcast(String event, String data) {
+    }
+
+    @Override
+    public boolean sendToClient(String clientId, String event, String data) {
+        return false;
+    }
+}
@@ -0,0 +1,324 @@
+package com.mg.core.service.sse;
+
+import com.mg.core.utils.IdGenUtil;
+import com.mg.redis.utils.RedisUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.redisson.api.RMap;
+import org.redisson.api.RStream;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.client.codec.StringCodec;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * packageName com.mg.core.service.sse
+ * 基于 redis pub/sub 的集群 broker
+ *
+ * @author mj
+ * @className RedisSseBroker
+ * @date 2026/10/19
+ * @description 节点只订阅本地有订阅者的 topic；每条消息只发布一次，发送节点本地直接投递并忽略自己的回显；
+ * presence 哈希记录 clientId -> 节点，单播直接发往目标节点的专属通道；节点定期续期存活键，
+ * 单播无人接收或节点存活键过期时清理其 presence 记录，节点异常退出后残留记录最多保留 NODE_TTL 加一个清理周期；
+ * 开启 stream 持久化后 topic 事件同时写入 redis stream，客户端重连到未缓存该 topic 的节点时从 stream 回放
+ */
+@Log4j2
+public class RedisSseBroker implements SseBroker {
+    private static final String TOPIC_CHANNEL = "sse:topic:";
+    private static final String BROADCAST_CHANNEL = "sse:all";
+    private static final String NODE_CHANNEL = "sse:node:";
+    private static final String PRESENCE_KEY = "sse:presence";
+    private static final String STREAM_KEY = "sse:stream:";
+    private static final String ALIVE_KEY = "sse:alive:";
+    /**
+     * presence 清理锁，同一周期只有一个节点扫描
+     */
+    private static final String SWEEP_LOCK = "sse:presence:sweep";
+    /**
+     * 节点存活键有效期，每 NODE_TTL / 3 续期一次
+     */
+    private static final Duration NODE_TTL = Duration.ofSeconds(30);
+    /**
+     * presence 清理周期
+     */
+    private static final Duration SWEEP_INTERVAL = Duration.ofMinutes(1);
+    /**
+     * presence 清理时每次 HSCAN 读取的条目数
+     */
+    private static final int SWEEP_PAGE_SIZE = 500;
+    /**
+     * topic 长时间无事件时 stream 自动过期
+     */
+    private static final Duration STREAM_TTL = Duration.ofDays(1);
+    /**
+     * 回放查询每页读取的 stream 条目数
+     */
+    private static final int HISTORY_PAGE_SIZE = 64;
+    /**
+     * topic 正在订阅或取消订阅的占位值，监听器 ID 从 1 开始
+     */
+    private static final int ALIGNING = -1;
+
+    private final String nodeId = IdGenUtil.nextIdStr();
+    private final boolean streamBacked;
+    private final int streamMaxLen;
+    /**
+     * topic -> redis 监听器 ID，对齐期间为 ALIGNING
+     */
+    private final Map<String, Integer> topicListeners = new ConcurrentHashMap<>();
+    /**
+     * 本节点登记到 presence 的客户端，关闭时统一清理
+     */
+    private final Set<String> localClients = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sse-presence");
+        t.setDaemon(true);
+        return t;
+    });
+    private SseDelivery delivery;
+    private int broadcastListener;
+    private int nodeListener;
+
+    public RedisSseBroker(boolean streamBacked, int streamMaxLen) {
+        this.streamBacked = streamBacked;
+        this.streamMaxLen = streamMaxLen;
+    }
+
+    @Override
+    public void bind(SseDelivery delivery) {
+        this.delivery = delivery;
+        broadcastListener = RedisUtil.subscribe(BROADCAST_CHANNEL, SseEnvelope.class, env -> {
+            if (!nodeId.equals(env.getOrigin())) {
+                delivery.deliverAll(env.getEvent(), env.getData());
+            }
+        });
+        nodeListener = RedisUtil.subscribe(NODE_CHANNEL + nodeId, SseEnvelope.class, this::onUnicast);
+        keepAlive();
+        long keepAliveMillis = NODE_TTL.toMillis() / 3;
+        scheduler.scheduleWithFixedDelay(this::keepAlive, keepAliveMillis, keepAliveMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::sweepPresence, SWEEP_INTERVAL.toMillis(), SWEEP_INTERVAL.toMillis(),
+                TimeUnit.MILLISECONDS);
+        log.info("SSE 集群分发已启用，节点 {}", nodeId);
+    }
+
+    @Override
+    public void topicChanged(String topic) {
+        // 按本地实际订阅情况对齐 redis 订阅。compute 内只判断要做什么并占位，redis 订阅/取消在 compute 外执行，
+        // 不在 map 锁内阻塞；占位期间其它线程直接返回，由占位线程完成后重新检查，并发加入/离开时以最终状态为准
+        while (true) {
+            boolean[] subscribe = new boolean[1];
+            Integer[] stale = new Integer[1];
+            topicListeners.compute(topic, (t, listenerId) -> {
+                if (listenerId != null && listenerId == ALIGNING) {
+                    return listenerId;
+                }
+                boolean hosted = delivery.hasTopic(t);
+                if (hosted && listenerId == null) {
+                    subscribe[0] = true;
+                    return ALIGNING;
+                }
+                if (!hosted && listenerId != null) {
+                    stale[0] = listenerId;
+                    return ALIGNING;
+                }
+                return listenerId;
+            });
+            if (subscribe[0]) {
+                int listenerId;
+                try {
+                    listenerId = RedisUtil.subscribe(TOPIC_CHANNEL + topic, SseEnvelope.class, env -> {
+                        if (!nodeId.equals(env.getOrigin())) {
+                            delivery.deliverTopic(new SseEvent(env.getId(), topic, env.getEvent(), env.getData(), env.getKey()));
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    topicListeners.remove(topic, ALIGNING);
+                    throw e;
+                }
+                delivery.topicAttached(topic);
+                topicListeners.put(topic, listenerId);
+            } else if (stale[0] != null) {
+                // 先丢弃本节点缓冲再取消订阅，不会有缓冲已缺事件却仍被用于回放的窗口
+                delivery.topicDetached(topic);
+                try {
+                    RedisUtil.unsubscribe(TOPIC_CHANNEL + topic, stale[0]);
+                } finally {
+                    topicListeners.remove(topic, ALIGNING);
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 只订阅本地有订阅者的 topic，其余 topic 在其它节点发布的事件本节点收不到
+     */
+    @Override
+    public boolean coversAllTopics() {
+        return false;
+    }
+
+    @Override
+    public void clientConnected(String clientId) {
+        localClients.add(clientId);
+        RedisUtil.setCacheMapValue(PRESENCE_KEY, clientId, nodeId);
+    }
+
+    @Override
+    public void clientRemoved(String clientId) {
+        localClients.remove(clientId);
+        // 条件删除：客户端可能已重连到其它节点
+        RedisUtil.getClient().getMap(PRESENCE_KEY).remove(clientId, nodeId);
+    }
+
+    @Override
+    public void publishTopic(SseEvent event) {
+        if (streamBacked) {
+            // 异步写入，不阻塞发布；近似裁剪（~ MAXLEN）开销更小
+            RStream<String, String> stream = RedisUtil.getClient().getStream(STREAM_KEY + event.topic(), StringCodec.INSTANCE);
+            stream.addAsync(StreamAddArgs.entries(Map.of("id", String.valueOf(event.id()), "event", event.event(),
+                    "data", event.data() == null ? "" : event.data())).trimNonStrict().maxLen(streamMaxLen).noLimit());
+            stream.expireAsync(STREAM_TTL);
+        }
+        RedisUtil.publish(TOPIC_CHANNEL + event.topic(), new SseEnvelope(nodeId, event.topic(), event.id(), event.event(), event.data(), event.key()));
+    }
+
+    @Override
+    public void broadcast(String event, String data) {
+        RedisUtil.publish(BROADCAST_CHANNEL, new SseEnvelope(nodeId, null, null, event, data, null));
+    }
+
+    @Override
+    public boolean sendToClient(String clientId, String event, String data) {
+        String node = RedisUtil.getCacheMapValue(PRESENCE_KEY, clientId);
+        if (node == null || nodeId.equals(node)) {
+            // 不在任何节点，或 presence 指向本节点但本地已无连接（残留记录）
+            return false;
+        }
+        long receivers = RedisUtil.publish(NODE_CHANNEL + node, new SseEnvelope(nodeId, clientId, null, event, data, null));
+        if (receivers == 0) {
+            // 目标节点已不在线（节点通道无人订阅），条件删除，客户端可能刚重连到其它节点
+            log.warn("客户端 {} 所在节点 {} 不在线，清理残留 presence", clientId, node);
+            RedisUtil.getClient().getMap(PRESENCE_KEY).remove(clientId, node);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public List<SseEvent> history(String topic, long lastEventId) {
+        if (!streamBacked) {
+            return null;
+        }
+        RStream<String, String> stream = RedisUtil.getClient().getStream(STREAM_KEY + topic, StringCodec.INSTANCE);
+        // 从最新往前分页读，遇到不晚于 lastEventId 的事件即停止，断开时间短时只读一页
+        List<SseEvent> result = new ArrayList<>();
+        StreamMessageId start = StreamMessageId.MAX;
+        while (true) {
+            Map<StreamMessageId, Map<String, String>> entries =
+                    stream.rangeReversed(HISTORY_PAGE_SIZE, start, StreamMessageId.MIN);
+            StreamMessageId oldest = null;
+            for (Map.Entry<StreamMessageId, Map<String, String>> entry : entries.entrySet()) {
+                long id = Long.parseLong(entry.getValue().get("id"));
+                if (id <= lastEventId) {
+                    Collections.reverse(result);
+                    return result;
+                }
+                result.add(new SseEvent(id, topic, entry.getValue().get("event"), entry.getValue().get("data")));
+                oldest = entry.getKey();
+            }
+            if (entries.size() < HISTORY_PAGE_SIZE) {
+                // 读到最早的记录仍晚于 lastEventId：stream 已被裁剪，断开区间不完整
+                return null;
+            }
+            start = previous(oldest);
+        }
+    }
+
+    /**
+     * stream ID 的前一个 ID，用于分页时排除已读的条目
+     */
+    private static StreamMessageId previous(StreamMessageId id) {
+        return id.getId1() > 0
+                ? new StreamMessageId(id.getId0(), id.getId1() - 1)
+                : new StreamMessageId(id.getId0() - 1, Long.MAX_VALUE);
+    }
+
+    /**
+     * 续期本节点存活键
+     */
+    private void keepAlive() {
+        try {
+            RedisUtil.setCacheObject(ALIVE_KEY + nodeId, System.currentTimeMillis(), NODE_TTL);
+        } catch (RuntimeException e) {
+            log.error("SSE 节点 {} 存活键续期失败: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 清理存活键已过期节点的 presence 记录；按 HSCAN 分页遍历，同一周期只有拿到清理锁的节点执行
+     */
+    private void sweepPresence() {
+        try {
+            if (!RedisUtil.setObjectIfAbsent(SWEEP_LOCK, nodeId, SWEEP_INTERVAL)) {
+                return;
+            }
+            RMap<String, String> presence = RedisUtil.getClient().getMap(PRESENCE_KEY);
+            Map<String, Boolean> alive = new HashMap<>();
+            int removed = 0;
+            for (Map.Entry<String, String> entry : presence.entrySet(SWEEP_PAGE_SIZE)) {
+                String node = entry.getValue();
+                if (!alive.computeIfAbsent(node, n -> RedisUtil.hasKey(ALIVE_KEY + n))) {
+                    // 条件删除：扫描期间客户端可能已重连到其它节点
+                    if (presence.remove(entry.getKey(), node)) {
+                        removed++;
+                    }
+                }
+            }
+            if (removed > 0) {
+                log.info("清理离线节点 {} 的 presence 记录 {} 条", alive.entrySet().stream()
+                        .filter(e -> !e.getValue()).map(Map.Entry::getKey).toList(), removed);
+            }
+        } catch (RuntimeException e) {
+            log.error("SSE presence 清理失败: {}", e.getMessage());
+        }
+    }
+
+    private void onUnicast(SseEnvelope env) {
+        if (!delivery.deliverClient(env.getTarget(), env.getEvent(), env.getData())) {
+            log.warn("客户端 {} 不在本节点 {}，清理残留 presence", env.getTarget(), nodeId);
+            RedisUtil.getClient().getMap(PRESENCE_KEY).remove(env.getTarget(), nodeId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        RedisUtil.unsubscribe(BROADCAST_CHANNEL, broadcastListener);
+        RedisUtil.unsubscribe(NODE_CHANNEL + nodeId, nodeListener);
+        topicListeners.forEach((topic, listenerId) -> {
+            if (listenerId != ALIGNING) {
+                RedisUtil.unsubscribe(TOPIC_CHANNEL + topic, listenerId);
+            }
+        });
+        topicListeners.clear();
+        for (String clientId : localClients) {
+            RedisUtil.getClient().getMap(PRESENCE_KEY).remove(clientId, nodeId);
+        }
+        localClients.clear();
+        RedisUtil.deleteObject(ALIVE_KEY + nodeId);
+    }
+}
@@ -0,0 +1,41 @@
+package com.mg.core.service.sse;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * packageName com.mg.core.service.sse
+ * servlet SseEmitter 连接
+ *
+ * @author mj
+ * @className ServletSseConnection
+ * @date 2026/10/19
+ * @description 写出会阻塞调用线程直到数据进入 servlet 输出缓冲，由 SseManager 在线程池中调用
+ */
+public class ServletSseConnection implements SseConnection {
+    private final SseEmitter emitter;
+
+    public ServletSseConnection(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void write(SseFrame frame) throws IOException {
+        try {
+            frame.writeTo(emitter);
+        } catch (IllegalStateException e) {
+            // 连接已完成，emitter 不能再写
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        emitter.complete();
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+}
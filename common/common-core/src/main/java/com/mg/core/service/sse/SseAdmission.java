@@ -0,0 +1,79 @@
+package com.mg.core.service.sse;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * packageName com.mg.core.service.sse
+ * SSE 连接准入控制
+ *
+ * @author mj
+ * @className SseAdmission
+ * @date 2026/10/19
+ * @description 按节点总连接数与单用户连接数限流，上限为 0 表示不限制；
+ * 同一 clientId 重连复用原连接占用的名额，不重复计数。retry 提示带随机抖动，打散浏览器的重连时间
+ */
+public class SseAdmission {
+    private final int maxConnections;
+    private final int maxConnectionsPerUser;
+    private final AtomicInteger total = new AtomicInteger();
+    /**
+     * userId -> 连接数，计数归零时移除
+     */
+    private final ConcurrentHashMap<String, Integer> perUser = new ConcurrentHashMap<>();
+
+    public SseAdmission(int maxConnections, int maxConnectionsPerUser) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+    }
+
+    /**
+     * 申请一个连接名额
+     *
+     * @return 超过节点或用户上限时返回 false
+     */
+    public boolean tryAcquire(String userId) {
+        if (total.incrementAndGet() > maxConnections && maxConnections > 0) {
+            total.decrementAndGet();
+            return false;
+        }
+        if (maxConnectionsPerUser <= 0) {
+            return true;
+        }
+        boolean[] admitted = {false};
+        perUser.compute(userId, (id, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxConnectionsPerUser) {
+                return count;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        if (!admitted[0]) {
+            total.decrementAndGet();
+        }
+        return admitted[0];
+    }
+
+    /**
+     * 归还名额，每次成功的 tryAcquire 对应一次
+     */
+    public void release(String userId) {
+        total.decrementAndGet();
+        if (maxConnectionsPerUser > 0) {
+            perUser.computeIfPresent(userId, (id, count) -> count <= 1 ? null : count - 1);
+        }
+    }
+
+    public int connections() {
+        return total.get();
+    }
+
+    /**
+     * 带抖动的重连间隔：base + [0, jitter)
+     */
+    public static long jitter(long baseMillis, long jitterMillis) {
+        return jitterMillis <= 0 ? baseMillis : baseMillis + ThreadLocalRandom.current().nextLong(jitterMillis);
+    }
+}
@@ -0,0 +1,30 @@
+package com.mg.core.service.sse;
+
+/**
+ * packageName com.mg.core.service.sse
+ * SSE 握手鉴权
+ *
+ * @author mj
+ * @className SseAuthenticator
+ * @date 2026/10/19
+ * @description servlet 传输由业务 controller 在鉴权拦截器之后确定 clientId 与 userId；
+ * netty 传输不经过 spring mvc，由该接口校验握手凭证并得出用户。启用 netty 传输时必须提供实现。
+ * 两个方法都在握手线程池中调用，可以访问 redis 等外部存储
+ */
+public interface SseAuthenticator {
+
+    /**
+     * 校验握手凭证
+     *
+     * @param token Authorization: Bearer 之后的内容，没有该请求头时取 access_token 参数（浏览器 EventSource 不能设置请求头）
+     * @return 凭证对应的用户 ID，凭证无效时返回 null
+     */
+    String authenticate(String token);
+
+    /**
+     * 用户是否可以订阅 topic，默认允许
+     */
+    default boolean canSubscribe(String userId, String topic) {
+        return true;
+    }
+}
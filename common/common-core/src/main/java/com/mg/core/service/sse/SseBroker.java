@@ -0,0 +1,69 @@
+package com.mg.core.service.sse;
+
+import java.util.List;
+
+/**
+ * packageName com.mg.core.service.sse
+ * SSE 跨节点分发
+ *
+ * @author mj
+ * @className SseBroker
+ * @date 2026/10/19
+ * @description SseManager 负责本节点投递，broker 负责把消息送到其它节点；单机部署使用 LocalSseBroker
+ */
+public interface SseBroker {
+
+    /**
+     * SseManager 初始化时绑定本节点投递入口
+     */
+    void bind(SseDelivery delivery);
+
+    /**
+     * 本节点某个 topic 的订阅情况可能发生了变化（首个订阅者加入或最后一个离开）
+     */
+    void topicChanged(String topic);
+
+    /**
+     * 客户端连接到本节点
+     */
+    void clientConnected(String clientId);
+
+    /**
+     * 客户端从本节点断开
+     */
+    void clientRemoved(String clientId);
+
+    /**
+     * 分组消息发往其它节点（本节点已自行投递）
+     */
+    void publishTopic(SseEvent event);
+
+    /**
+     * 全局广播发往其它节点（本节点已自行投递）
+     */
+    void broadcast(String event, String data);
+
+    /**
+     * 单播给不在本节点的客户端
+     *
+     * @return 客户端不在任何节点时返回 false
+     */
+    boolean sendToClient(String clientId, String event, String data);
+
+    /**
+     * 本节点是否收到全部 topic 的事件，不论本地有没有订阅者；
+     * 返回 false 时只在 SseDelivery.topicAttached 与 topicDetached 之间收到完整事件，本节点缓冲只记录该区间
+     */
+    default boolean coversAllTopics() {
+        return true;
+    }
+
+    /**
+     * 查询 topic 在 lastEventId 之后的持久化事件，本节点缓冲不能覆盖断开区间时使用
+     *
+     * @return 没有持久化记录，或记录已被裁剪、不能覆盖整个断开区间时返回 null
+     */
+    default List<SseEvent> history(String topic, long lastEventId) {
+        return null;
+    }
+}
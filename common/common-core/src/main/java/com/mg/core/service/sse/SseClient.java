@@ -0,0 +1,170 @@
+package com.mg.core.service.sse;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * packageName com.mg.core.service.sse
+ * SSE 客户端连接
+ *
+ * @author mj
+ * @className SseClient
+ * @date 2026/10/19
+ * @description 持有连接与订阅的 topic 集合，topic 索引直接引用该对象，分发时无需再按 clientId 查找；
+ * 消息先进入有界队列，再由单个线程按序写出；同一 clientId 重连时换绑新连接，队列与订阅保留
+ */
+public class SseClient {
+    private final String clientId;
+    private final String userId;
+    /**
+     * 登记时未提供已鉴权的 userId，userId 取 clientId
+     */
+    private final boolean anonymous;
+    private volatile SseConnection connection;
+    private final SseMailbox mailbox;
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+    /**
+     * 最近一次写出数据的时间，心跳据此跳过活跃连接
+     */
+    private volatile long lastWriteMillis = System.currentTimeMillis();
+
+    public SseClient(String clientId, String userId, boolean anonymous, SseConnection connection, SseMailbox mailbox) {
+        this.clientId = clientId;
+        this.userId = userId;
+        this.anonymous = anonymous;
+        this.connection = connection;
+        this.mailbox = mailbox;
+    }
+
+    /**
+     * 消息入队，写出由 drain 完成
+     *
+     * @param key 合并键，为空时不合并
+     */
+    public SseMailbox.Offer enqueue(SseFrame frame, String key, String topic) {
+        return mailbox.offer(frame, key, topic);
+    }
+
+    /**
+     * 增量 topic 消息入队，不会被丢弃
+     *
+     * @param snapshot 与 frame 同一事件的全量快照帧
+     */
+    public SseMailbox.Offer enqueueDelta(SseFrame frame, SseFrame snapshot, String topic) {
+        return mailbox.offerDelta(frame, snapshot, topic);
+    }
+
+    /**
+     * 写出队列中的消息；已有其它线程在写时直接返回，由该线程负责写出新入队的消息。
+     * 连接不可写时停止写出，消息留在队列中（满了按溢出策略丢弃并计数），连接恢复可写后需再次调用
+     *
+     * @param limit   单次最多写出条数，避免一个客户端长期占用线程
+     * @param metrics 写出结果计入对应 topic 的统计
+     * @return 达到上限后仍有剩余消息，调用方需重新调度
+     * @throws IOException 写出失败，队列已关闭并清空
+     */
+    public boolean drain(int limit, SseMetrics metrics) throws IOException {
+        while (mailbox.tryAcquire()) {
+            int written = 0;
+            SseMailbox.Entry entry = null;
+            try {
+                while (written < limit && connection.isWritable() && (entry = mailbox.poll()) != null) {
+                    write(entry.frame);
+                    lastWriteMillis = System.currentTimeMillis();
+                    metrics.topic(entry.topic).sent(entry.frame.size(), System.nanoTime() - entry.enqueuedNanos);
+                    written++;
+                }
+            } catch (IOException e) {
+                metrics.topic(entry.topic).failed();
+                mailbox.close();
+                throw e;
+            } finally {
+                mailbox.release();
+            }
+            // 释放后再检查一次：释放前入队的消息，入队线程抢不到写出权；
+            // 不可写时等待可写事件重新调度，释放后才变为可写的由该事件负责
+            if (mailbox.isEmpty() || !connection.isWritable()) {
+                return false;
+            }
+            if (written >= limit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 写出一帧；写出期间连接被换绑时旧连接已关闭，改写到新连接
+     */
+    private void write(SseFrame frame) throws IOException {
+        SseConnection current = connection;
+        try {
+            current.write(frame);
+        } catch (IOException e) {
+            SseConnection next = connection;
+            if (next == current) {
+                throw e;
+            }
+            next.write(frame);
+        }
+    }
+
+    /**
+     * 换绑连接（同一 clientId 重连）
+     *
+     * @return 被替换的旧连接，调用方负责关闭
+     */
+    public SseConnection rebind(SseConnection connection) {
+        SseConnection previous = this.connection;
+        this.connection = connection;
+        return previous;
+    }
+
+    /**
+     * 连接移除后清空队列并拒绝后续消息，释放积压内存
+     */
+    public void discard() {
+        mailbox.close();
+    }
+
+    public SseMailbox getMailbox() {
+        return mailbox;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public boolean isAnonymous() {
+        return anonymous;
+    }
+
+    public SseConnection getConnection() {
+        return connection;
+    }
+
+    public long getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+
+    /**
+     * 已订阅的 topic（只读视图）
+     */
+    public Set<String> getTopics() {
+        return Collections.unmodifiableSet(topics);
+    }
+
+    boolean addTopic(String topic) {
+        return topics.add(topic);
+    }
+
+    boolean removeTopic(String topic) {
+        return topics.remove(topic);
+    }
+}
@@ -0,0 +1,34 @@
+package com.mg.core.service.sse;
+
+import java.io.IOException;
+
+/**
+ * packageName com.mg.core.service.sse
+ * SSE 连接传输层
+ *
+ * @author mj
+ * @className SseConnection
+ * @date 2026/10/19
+ * @description 屏蔽 servlet SseEmitter 与 netty channel 的差异，SseManager 只面向该接口分发
+ */
+public interface SseConnection {
+
+    /**
+     * 写出一帧；netty 实现只入队不阻塞
+     *
+     * @throws IOException 连接已断开
+     */
+    void write(SseFrame frame) throws IOException;
+
+    /**
+     * 出站缓冲是否还能接收数据；不可写时写出方应停止写出、保留队列中的消息，恢复可写后再继续
+     */
+    default boolean isWritable() {
+        return true;
+    }
+
+    /**
+     * 关闭连接
+     */
+    void close();
+}
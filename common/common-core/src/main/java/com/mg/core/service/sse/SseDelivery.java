@@ -0,0 +1,39 @@
+package com.mg.core.service.sse;
+
+/**
+ * packageName com.mg.core.service.sse
+ * 本节点投递入口
+ *
+ * @author mj
+ * @className SseDelivery
+ * @date 2026/10/19
+ * @description broker 收到其它节点的消息后通过该接口投递给本节点连接
+ */
+public interface SseDelivery {
+
+    /**
+     * 本节点是否有该 topic 的订阅者
+     */
+    boolean hasTopic(String topic);
+
+    void deliverTopic(SseEvent event);
+
+    void deliverAll(String event, String data);
+
+    /**
+     * @return 客户端不在本节点时返回 false
+     */
+    boolean deliverClient(String clientId, String event, String data);
+
+    /**
+     * broker 开始接收 topic 在其它节点发布的事件，此后本节点收到的该 topic 事件是完整的
+     */
+    default void topicAttached(String topic) {
+    }
+
+    /**
+     * broker 即将停止接收 topic 在其它节点发布的事件，此后本节点收到的该 topic 事件不再完整
+     */
+    default void topicDetached(String topic) {
+    }
+}
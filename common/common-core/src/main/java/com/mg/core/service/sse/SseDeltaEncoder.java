@@ -0,0 +1,107 @@
+package com.mg.core.service.sse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * packageName com.mg.core.service.sse
+ * 状态类 topic 的增量编码
+ *
+ * @author mj
+ * @className SseDeltaEncoder
+ * @date 2026/10/19
+ * @description 保存 topic 最近一次快照，新消息与之比较生成 JSON Merge Patch（RFC 7386）以 patch 事件下发；
+ * 首条消息、非 JSON 消息或补丁不比全量小时以 snapshot 事件下发全量；新连接先收到一次 snapshot。
+ * 客户端收到 snapshot 时整体替换状态，收到 patch 时按 RFC 7386 合并（值为 null 表示删除字段）。
+ * 各节点按自己下发过的快照计算补丁，与本节点客户端持有的状态一致。调用方需在同一把锁内完成编码与入队，保证补丁顺序
+ */
+public class SseDeltaEncoder {
+    public static final String SNAPSHOT_EVENT = "snapshot";
+    public static final String PATCH_EVENT = "patch";
+    /**
+     * 连续补丁达到该数量后强制下发一次全量，客户端应用补丁出错时据此恢复一致（队列溢出不丢补丁，见 SseMailbox.offerDelta）
+     */
+    private static final int SNAPSHOT_INTERVAL = 64;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private JsonNode state;
+    private String stateText;
+    private long lastId;
+    private int patchCount;
+
+    /**
+     * 编码新快照
+     *
+     * @param id   事件 ID
+     * @param data 新的全量 JSON
+     * @return 下发的事件：patch 或 snapshot
+     */
+    public SseEvent encode(long id, String topic, String data, String key) {
+        if (data == null) {
+            data = "";
+        }
+        JsonNode next;
+        try {
+            next = MAPPER.readTree(data);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            next = null;
+        }
+        JsonNode previous = state;
+        state = next;
+        stateText = data;
+        lastId = id;
+        if (previous == null || next == null || ++patchCount >= SNAPSHOT_INTERVAL) {
+            patchCount = 0;
+            return new SseEvent(id, topic, SNAPSHOT_EVENT, data, key);
+        }
+        String patch = diff(previous, next).toString();
+        if (patch.length() >= data.length()) {
+            patchCount = 0;
+            return new SseEvent(id, topic, SNAPSHOT_EVENT, data, key);
+        }
+        return new SseEvent(id, topic, PATCH_EVENT, patch, key);
+    }
+
+    /**
+     * 当前全量快照，尚无数据时返回 null
+     */
+    public SseEvent snapshot(String topic) {
+        return stateText == null ? null : new SseEvent(lastId, topic, SNAPSHOT_EVENT, stateText);
+    }
+
+    /**
+     * 生成 previous -> next 的 merge patch；两边都是对象时逐字段递归，否则整体替换
+     */
+    static JsonNode diff(JsonNode previous, JsonNode next) {
+        if (!previous.isObject() || !next.isObject()) {
+            return next;
+        }
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+        Iterator<String> oldFields = previous.fieldNames();
+        while (oldFields.hasNext()) {
+            String field = oldFields.next();
+            if (!next.has(field)) {
+                patch.putNull(field);
+            }
+        }
+        Iterator<Map.Entry<String, JsonNode>> newFields = next.fields();
+        while (newFields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = newFields.next();
+            JsonNode old = previous.get(entry.getKey());
+            if (old == null) {
+                patch.set(entry.getKey(), entry.getValue());
+            } else if (!old.equals(entry.getValue())) {
+                patch.set(entry.getKey(), old.isObject() && entry.getValue().isObject()
+                        ? diff(old, entry.getValue()) : entry.getValue());
+            }
+        }
+        return patch;
+    }
+}
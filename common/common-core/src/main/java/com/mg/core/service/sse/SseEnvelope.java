@@ -0,0 +1,38 @@
+package com.mg.core.service.sse;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * packageName com.mg.core.service.sse
+ * 跨节点传输的 SSE 消息
+ *
+ * @author mj
+ * @className SseEnvelope
+ * @date 2026/10/19
+ * @description 非 final 普通类，redis 默认编解码器会写入类型信息，订阅端可直接按该类型反序列化
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SseEnvelope {
+    /**
+     * 发送节点，节点收到自己发出的消息时跳过（本地已投递）
+     */
+    private String origin;
+    /**
+     * topic 名或 clientId，广播时为空
+     */
+    private String target;
+    /**
+     * topic 事件 ID，由发送节点生成，各节点回放缓冲中保持一致
+     */
+    private Long id;
+    private String event;
+    private String data;
+    /**
+     * topic 事件合并键
+     */
+    private String key;
+}
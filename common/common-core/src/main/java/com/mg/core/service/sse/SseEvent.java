@@ -0,0 +1,22 @@
+package com.mg.core.service.sse;
+
+/**
+ * packageName com.mg.core.service.sse
+ * 可回放的 SSE 事件
+ *
+ * @author mj
+ * @className SseEvent
+ * @date 2026/10/19
+ * @description id 为雪花 ID，随时间单调递增，浏览器重连时通过 Last-Event-ID 带回；
+ * key 为合并键，同一客户端队列中相同 key 的未写出事件只保留最新一条
+ */
+public record SseEvent(long id, String topic, String event, String data, String key) {
+
+    public SseEvent(long id, String topic, String event, String data) {
+        this(id, topic, event, data, null);
+    }
+
+    public SseFrame toFrame() {
+        return SseFrame.of(event, String.valueOf(id), data);
+    }
+}
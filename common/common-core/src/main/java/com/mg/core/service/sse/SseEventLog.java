@@ -0,0 +1,129 @@
+package com.mg.core.service.sse;
+
+import com.mg.core.utils.IdGenUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * packageName com.mg.core.service.sse
+ * 按 topic 保存最近事件的环形缓冲
+ *
+ * @author mj
+ * @className SseEventLog
+ * @date 2026/10/19
+ * @description 客户端重连时从 Last-Event-ID 之后回放；缓冲不能覆盖断开区间时由调用方回退到 broker 的持久化记录。
+ * 集群 broker 只在订阅 topic 期间收到其它节点的事件，此时缓冲只在 attach 与 detach 之间记录，
+ * 取消订阅时丢弃，重新订阅后从空缓冲开始，不会把缺了中间一段的缓冲当作完整记录回放
+ */
+public class SseEventLog {
+    private final int capacity;
+    private final long idleMillis;
+    private final boolean attachRequired;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    /**
+     * @param capacity       每个 topic 保留的事件数
+     * @param idleMillis     topic 无订阅者且无新事件超过该时长后释放缓冲
+     * @param attachRequired 是否只在 attach 之后记录，broker 不能收到全部 topic 事件时为 true
+     */
+    public SseEventLog(int capacity, long idleMillis, boolean attachRequired) {
+        this.capacity = capacity;
+        this.idleMillis = idleMillis;
+        this.attachRequired = attachRequired;
+    }
+
+    /**
+     * 记录事件
+     */
+    public void append(SseEvent event) {
+        Ring ring = attachRequired
+                ? rings.get(event.topic())
+                : rings.computeIfAbsent(event.topic(), t -> new Ring(capacity));
+        if (ring != null) {
+            ring.append(event);
+        }
+    }
+
+    /**
+     * topic 开始完整接收事件：丢弃此前的缓冲，从空缓冲重新记录
+     */
+    public void attach(String topic) {
+        if (attachRequired) {
+            rings.put(topic, new Ring(capacity));
+        }
+    }
+
+    /**
+     * topic 不再完整接收事件：丢弃缓冲，之后的回放回退到 broker 持久化记录
+     */
+    public void detach(String topic) {
+        if (attachRequired) {
+            rings.remove(topic);
+        }
+    }
+
+    /**
+     * 查询 lastEventId 之后的事件
+     *
+     * @return 缓冲不能完整覆盖 lastEventId 之后的区间时返回 null
+     */
+    public List<SseEvent> since(String topic, long lastEventId) {
+        Ring ring = rings.get(topic);
+        return ring == null ? null : ring.since(lastEventId);
+    }
+
+    /**
+     * 释放空闲 topic 的缓冲
+     */
+    public void prune(Predicate<String> hosted) {
+        long now = System.currentTimeMillis();
+        rings.entrySet().removeIf(e -> !hosted.test(e.getKey()) && now - e.getValue().lastActive > idleMillis);
+    }
+
+    private static final class Ring {
+        private final SseEvent[] events;
+        /**
+         * 缓冲建立时的 ID 边界，早于该值的事件本节点没有收到过
+         */
+        private final long createdId = IdGenUtil.nextId();
+        private int head;
+        private int size;
+        private long evictedId;
+        private volatile long lastActive = System.currentTimeMillis();
+
+        Ring(int capacity) {
+            this.events = new SseEvent[capacity];
+        }
+
+        synchronized void append(SseEvent event) {
+            int tail = (head + size) % events.length;
+            if (size == events.length) {
+                evictedId = events[head].id();
+                head = (head + 1) % events.length;
+            } else {
+                size++;
+            }
+            events[tail] = event;
+            lastActive = System.currentTimeMillis();
+        }
+
+        synchronized List<SseEvent> since(long lastEventId) {
+            lastActive = System.currentTimeMillis();
+            if (lastEventId < createdId || lastEventId < evictedId) {
+                return null;
+            }
+            List<SseEvent> result = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                SseEvent event = events[(head + i) % events.length];
+                if (event.id() > lastEventId) {
+                    result.add(event);
+                }
+            }
+            return result;
+        }
+    }
+}
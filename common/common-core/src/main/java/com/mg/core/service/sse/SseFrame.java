@@ -0,0 +1,83 @@
+package com.mg.core.service.sse;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * packageName com.mg.core.service.sse
+ * 预编码的 SSE 帧
+ *
+ * @author mj
+ * @className SseFrame
+ * @date 2026/10/19
+ * @description 一条消息只编码一次，所有连接共享同一份字节；byte[] 由 ByteArrayHttpMessageConverter 原样写出，不再逐连接序列化
+ */
+public final class SseFrame {
+    private final byte[] bytes;
+    private final Set<ResponseBodyEmitter.DataWithMediaType> payload;
+
+    private SseFrame(byte[] bytes) {
+        this.bytes = bytes;
+        this.payload = Set.of(new ResponseBodyEmitter.DataWithMediaType(bytes, MediaType.TEXT_PLAIN));
+    }
+
+    /**
+     * 编码事件帧，多行数据按规范拆成多个 data 行
+     */
+    public static SseFrame of(String event, String id, String data) {
+        StringBuilder sb = new StringBuilder(data == null ? 32 : data.length() + 32);
+        if (id != null) {
+            sb.append("id:").append(id).append('\n');
+        }
+        if (event != null) {
+            sb.append("event:").append(event).append('\n');
+        }
+        String text = data == null ? "" : data;
+        int start = 0;
+        int end;
+        while ((end = text.indexOf('\n', start)) >= 0) {
+            sb.append("data:").append(text, start, end).append('\n');
+            start = end + 1;
+        }
+        sb.append("data:").append(text, start, text.length()).append("\n\n");
+        return new SseFrame(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SseFrame of(String event, String data) {
+        return of(event, null, data);
+    }
+
+    /**
+     * 注释帧（以冒号开头），浏览器 EventSource 会忽略，只用于保持连接
+     */
+    public static SseFrame comment(String text) {
+        return new SseFrame((":" + text + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 重连间隔提示，浏览器 EventSource 断开后按该间隔重连
+     */
+    public static SseFrame retry(long millis) {
+        return new SseFrame(("retry:" + millis + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 写出到连接
+     */
+    public void writeTo(SseEmitter emitter) throws IOException {
+        emitter.send(payload);
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+}
@@ -0,0 +1,67 @@
+package com.mg.core.service.sse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * packageName com.mg.core.service.sse
+ * 心跳时间轮
+ *
+ * @author mj
+ * @className SseHeartbeatWheel
+ * @date 2026/10/19
+ * @description 连接按哈希分布到各槽，每次 tick 只检查一个槽，一轮 tick 恰好覆盖一个心跳间隔；
+ * 心跳检查均摊到整个间隔内，不会每隔 15 秒集中产生 N 个任务；近期写过数据的连接不发心跳
+ */
+public class SseHeartbeatWheel {
+    private final Set<SseClient>[] slots;
+    private final long intervalMillis;
+    private int cursor;
+
+    @SuppressWarnings("unchecked")
+    public SseHeartbeatWheel(int slotCount, long intervalMillis) {
+        this.slots = new Set[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * tick 间隔 = 心跳间隔 / 槽数
+     */
+    public long tickMillis() {
+        return Math.max(1, intervalMillis / slots.length);
+    }
+
+    public void add(SseClient client) {
+        slotOf(client).add(client);
+    }
+
+    public void remove(SseClient client) {
+        slotOf(client).remove(client);
+    }
+
+    /**
+     * 推进一个槽，返回该槽中自上次检查该槽以来未写出数据的连接；只由单个调度线程调用。
+     * 阈值放宽一个 tick：上次心跳本身是在上次检查之后异步写出的，按整间隔判断会被跳过，实际间隔变成两倍
+     */
+    public List<SseClient> tick() {
+        Set<SseClient> slot = slots[cursor];
+        cursor = (cursor + 1) % slots.length;
+        long deadline = System.currentTimeMillis() - intervalMillis + tickMillis();
+        List<SseClient> due = new ArrayList<>();
+        for (SseClient client : slot) {
+            if (client.getLastWriteMillis() <= deadline) {
+                due.add(client);
+            }
+        }
+        return due;
+    }
+
+    private Set<SseClient> slotOf(SseClient client) {
+        return slots[(client.hashCode() & Integer.MAX_VALUE) % slots.length];
+    }
+}
@@ -0,0 +1,213 @@
+package com.mg.core.service.sse;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * packageName com.mg.core.service.sse
+ * 单个客户端的有界发送队列
+ *
+ * @author mj
+ * @className SseMailbox
+ * @date 2026/10/19
+ * @description 同一时刻只有一个线程在写出（tryAcquire 成功者）；带合并键的消息在队列中只保留最新值；
+ * 队列满时按策略丢弃最旧或最新的消息，慢客户端占用的内存不超过容量上限。
+ * 增量 topic 的补丁依赖前一条，任何一条都不丢弃：队列满时把该 topic 的积压合并为一条全量快照，
+ * 为此队列可以超出容量，超出部分每个增量 topic 最多一条
+ */
+public class SseMailbox {
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /**
+         * 丢弃队首（最旧）消息，保证客户端看到最新数据
+         */
+        DROP_OLDEST,
+        /**
+         * 丢弃新到的消息
+         */
+        DROP_NEWEST
+    }
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    /**
+     * 合并键 -> 队列中尚未写出的消息
+     */
+    private final Map<String, Entry> pending = new HashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private boolean closed;
+    private long dropped;
+    private long conflated;
+
+    public SseMailbox(int capacity, OverflowPolicy policy) {
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+    }
+
+    /**
+     * 入队
+     *
+     * @param key   合并键，为空时不合并
+     * @param topic 统计归属的 topic
+     * @return 入队结果
+     */
+    public synchronized Offer offer(SseFrame frame, String key, String topic) {
+        if (closed) {
+            return Offer.CLOSED;
+        }
+        if (key != null) {
+            Entry entry = pending.get(key);
+            if (entry != null) {
+                // 原位替换，保持该键在队列中的顺序
+                entry.frame = frame;
+                conflated++;
+                return Offer.CONFLATED;
+            }
+        }
+        Offer result = Offer.QUEUED;
+        if (queue.size() >= capacity) {
+            dropped++;
+            if (policy == OverflowPolicy.DROP_NEWEST || !dropOldest()) {
+                return Offer.DROPPED;
+            }
+            result = Offer.DROPPED;
+        }
+        Entry entry = new Entry(key, frame, topic, null);
+        queue.add(entry);
+        if (key != null) {
+            pending.put(key, entry);
+        }
+        return result;
+    }
+
+    /**
+     * 增量 topic 入队。队列满时移除该 topic 积压的快照与补丁，连同本条合并为一条全量快照放到队尾，
+     * 合并后的快照即客户端此后补丁的基准
+     *
+     * @param snapshot 与 frame 同一事件的全量快照帧，frame 本身是快照时传同一个对象
+     * @return 有积压被合并时返回 CONFLATED
+     */
+    public synchronized Offer offerDelta(SseFrame frame, SseFrame snapshot, String topic) {
+        if (closed) {
+            return Offer.CLOSED;
+        }
+        if (queue.size() < capacity) {
+            queue.add(new Entry(null, frame, topic, snapshot));
+            return Offer.QUEUED;
+        }
+        int merged = 0;
+        Iterator<Entry> it = queue.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.snapshot != null && entry.topic.equals(topic)) {
+                it.remove();
+                merged++;
+            }
+        }
+        queue.add(new Entry(null, snapshot, topic, snapshot));
+        if (merged == 0) {
+            return Offer.QUEUED;
+        }
+        conflated += merged;
+        return Offer.CONFLATED;
+    }
+
+    /**
+     * 丢弃最旧的一条非增量消息
+     *
+     * @return 队列中全是增量 topic 的消息时返回 false
+     */
+    private boolean dropOldest() {
+        Iterator<Entry> it = queue.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.snapshot == null) {
+                it.remove();
+                if (entry.key != null) {
+                    pending.remove(entry.key);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized Entry poll() {
+        Entry entry = queue.poll();
+        if (entry != null && entry.key != null) {
+            pending.remove(entry.key);
+        }
+        return entry;
+    }
+
+    synchronized boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * 关闭并清空，之后的消息全部拒绝
+     */
+    synchronized void close() {
+        closed = true;
+        queue.clear();
+        pending.clear();
+    }
+
+    /**
+     * 获取写出权，成功后必须调用 release
+     */
+    boolean tryAcquire() {
+        return draining.compareAndSet(false, true);
+    }
+
+    void release() {
+        draining.set(false);
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    public synchronized long getConflated() {
+        return conflated;
+    }
+
+    /**
+     * 入队结果；DROPPED 在 DROP_OLDEST 策略下表示新消息已入队但挤掉了最旧的一条
+     */
+    public enum Offer {
+        QUEUED, CONFLATED, DROPPED, CLOSED
+    }
+
+    static final class Entry {
+        final String key;
+        final String topic;
+        /**
+         * 入队时间，合并替换时保留最早的入队时间，延迟统计反映客户端实际等待时长
+         */
+        final long enqueuedNanos = System.nanoTime();
+        /**
+         * 增量 topic 消息对应的全量快照帧，非增量消息为 null
+         */
+        final SseFrame snapshot;
+        SseFrame frame;
+
+        Entry(String key, SseFrame frame, String topic, SseFrame snapshot) {
+            this.key = key;
+            this.frame = frame;
+            this.topic = topic;
+            this.snapshot = snapshot;
+        }
+    }
+}
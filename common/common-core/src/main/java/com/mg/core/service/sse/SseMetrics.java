@@ -0,0 +1,179 @@
+package com.mg.core.service.sse;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * packageName com.mg.core.service.sse
+ * SSE 投递统计
+ *
+ * @author mj
+ * @className SseMetrics
+ * @date 2026/10/19
+ * @description 按 topic 统计发布、写出、失败、丢弃、合并次数与字节数，以及入队到写出的延迟分布；
+ * 计数均为 LongAdder，分发热路径上只有无锁累加；单播/广播/心跳分别归入 _unicast/_broadcast/_heartbeat。
+ * 本节点已无订阅者的 topic 由 prune 定期移除，其累计值随之清零
+ */
+public class SseMetrics {
+    public static final String UNICAST = "_unicast";
+    public static final String BROADCAST = "_broadcast";
+    public static final String HEARTBEAT = "_heartbeat";
+    public static final String CONTROL = "_control";
+
+    /**
+     * 延迟直方图桶上界（毫秒），按 2 的幂递增，最后一个桶收集更大的值
+     */
+    private static final long[] BUCKET_BOUNDS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024, 2048, 4096};
+    /**
+     * 内置分类，不随 topic 清理
+     */
+    private static final Set<String> BUILTIN = Set.of(UNICAST, BROADCAST, HEARTBEAT, CONTROL);
+
+    private final Map<String, TopicStats> topics = new ConcurrentHashMap<>();
+    private final int sampleRate;
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    /**
+     * @param sampleRate 每多少条消息输出一条采样日志
+     */
+    public SseMetrics(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public TopicStats topic(String topic) {
+        return topics.computeIfAbsent(topic == null ? UNICAST : topic, t -> new TopicStats());
+    }
+
+    /**
+     * 移除本节点已无订阅者的 topic 统计
+     */
+    public void prune(Predicate<String> hosted) {
+        topics.keySet().removeIf(topic -> !BUILTIN.contains(topic) && !hosted.test(topic));
+    }
+
+    /**
+     * 是否输出本条消息的采样日志
+     */
+    public boolean sample() {
+        return sampleCounter.incrementAndGet() % sampleRate == 0;
+    }
+
+    /**
+     * 全部 topic 的统计快照，按 topic 名排序
+     */
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> result = new TreeMap<>();
+        topics.forEach((topic, stats) -> result.put(topic, stats.snapshot()));
+        return result;
+    }
+
+    public long totalDropped() {
+        long sum = 0;
+        for (TopicStats stats : topics.values()) {
+            sum += stats.dropped.sum();
+        }
+        return sum;
+    }
+
+    public long totalConflated() {
+        long sum = 0;
+        for (TopicStats stats : topics.values()) {
+            sum += stats.conflated.sum();
+        }
+        return sum;
+    }
+
+    /**
+     * 单个 topic 的计数器
+     */
+    public static final class TopicStats {
+        private final LongAdder published = new LongAdder();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder conflated = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder[] latency = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+        TopicStats() {
+            for (int i = 0; i < latency.length; i++) {
+                latency[i] = new LongAdder();
+            }
+        }
+
+        public void published() {
+            published.increment();
+        }
+
+        public void dropped() {
+            dropped.increment();
+        }
+
+        public void conflated() {
+            conflated.increment();
+        }
+
+        public void failed() {
+            failed.increment();
+        }
+
+        /**
+         * 记录一次成功写出
+         *
+         * @param size          帧字节数
+         * @param latencyNanos 入队到写出的耗时
+         */
+        public void sent(int size, long latencyNanos) {
+            sent.increment();
+            bytes.add(size);
+            long millis = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+            int i = 0;
+            while (i < BUCKET_BOUNDS.length && millis >= BUCKET_BOUNDS[i]) {
+                i++;
+            }
+            latency[i].increment();
+        }
+
+        Snapshot snapshot() {
+            long[] counts = new long[latency.length];
+            long total = 0;
+            for (int i = 0; i < latency.length; i++) {
+                counts[i] = latency[i].sum();
+                total += counts[i];
+            }
+            return new Snapshot(published.sum(), sent.sum(), failed.sum(), dropped.sum(), conflated.sum(), bytes.sum(),
+                    percentile(counts, total, 0.5), percentile(counts, total, 0.99));
+        }
+
+        /**
+         * 返回百分位所在桶的上界（毫秒），超出最大桶时返回最大上界的两倍
+         */
+        private static long percentile(long[] counts, long total, double p) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i < BUCKET_BOUNDS.length ? BUCKET_BOUNDS[i] : BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1] * 2;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * 统计快照，延迟为桶上界（毫秒）
+     */
+    public record Snapshot(long published, long sent, long failed, long dropped, long conflated, long bytes,
+                           long p50Millis, long p99Millis) {
+    }
+}
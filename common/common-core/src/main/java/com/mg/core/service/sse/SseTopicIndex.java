@@ -0,0 +1,65 @@
+package com.mg.core.service.sse;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * packageName com.mg.core.service.sse
+ * topic -> 订阅客户端 倒排索引
+ *
+ * @author mj
+ * @className SseTopicIndex
+ * @date 2026/10/19
+ * @description topic 分发只遍历该 topic 的订阅者，复杂度 O(订阅者) 而不是 O(全部连接)
+ */
+public class SseTopicIndex {
+    private final ConcurrentHashMap<String, Set<SseClient>> index = new ConcurrentHashMap<>();
+
+    /**
+     * 订阅 topic
+     */
+    public void subscribe(SseClient client, String topic) {
+        // 在 compute 中同时更新客户端侧集合，与 unsubscribe 的空集合清理互斥
+        index.compute(topic, (t, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            set.add(client);
+            client.addTopic(t);
+            return set;
+        });
+    }
+
+    /**
+     * 取消订阅 topic，集合为空时移除该 topic
+     */
+    public void unsubscribe(SseClient client, String topic) {
+        index.computeIfPresent(topic, (t, set) -> {
+            set.remove(client);
+            client.removeTopic(t);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * 取消客户端的全部订阅
+     */
+    public void removeClient(SseClient client) {
+        for (String topic : client.getTopics()) {
+            unsubscribe(client, topic);
+        }
+    }
+
+    /**
+     * topic 的订阅者（弱一致视图，遍历期间的增删不会抛异常）
+     */
+    public Set<SseClient> subscribers(String topic) {
+        Set<SseClient> set = index.get(topic);
+        return set == null ? Collections.emptySet() : set;
+    }
+
+    public Set<String> topics() {
+        return index.keySet();
+    }
+}
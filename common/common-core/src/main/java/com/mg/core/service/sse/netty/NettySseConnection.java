@@ -0,0 +1,51 @@
+package com.mg.core.service.sse.netty;
+
+import com.mg.core.service.sse.SseConnection;
+import com.mg.core.service.sse.SseFrame;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+
+import java.io.IOException;
+
+/**
+ * packageName com.mg.core.service.sse.netty
+ * netty channel 连接
+ *
+ * @author mj
+ * @className NettySseConnection
+ * @date 2026/10/19
+ * @description 写出只把共享字节包装后入队到 event loop，不占用调用线程；
+ * 出站缓冲超过高水位（客户端读不动）时 isWritable 返回 false，SseClient 停止写出、消息留在队列中按溢出策略处理，
+ * 恢复可写后由 NettySseHandler 重新调度写出
+ */
+public class NettySseConnection implements SseConnection {
+    private final Channel channel;
+
+    public NettySseConnection(Channel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void write(SseFrame frame) throws IOException {
+        if (!channel.isActive()) {
+            throw new IOException("连接已关闭");
+        }
+        // wrappedBuffer 不复制字节，所有连接共享同一份编码结果
+        channel.writeAndFlush(new DefaultHttpContent(Unpooled.wrappedBuffer(frame.bytes())), channel.voidPromise());
+    }
+
+    @Override
+    public boolean isWritable() {
+        return channel.isWritable();
+    }
+
+    @Override
+    public void close() {
+        channel.close();
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+}
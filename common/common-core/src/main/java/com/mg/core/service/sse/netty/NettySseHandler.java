@@ -0,0 +1,235 @@
+package com.mg.core.service.sse.netty;
+
+import com.mg.core.constant.ErrorCode;
+import com.mg.core.exception.ServerException;
+import com.mg.core.service.SseManager;
+import com.mg.core.service.sse.SseAuthenticator;
+import com.mg.core.service.sse.SseClient;
+import com.mg.core.service.sse.SseConnection;
+import com.mg.core.utils.StringUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.*;
+import lombok.extern.log4j.Log4j2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * packageName com.mg.core.service.sse.netty
+ * SSE 握手处理
+ *
+ * @author mj
+ * @className NettySseHandler
+ * @date 2026/10/19
+ * @description GET {path}?clientId=xx&topic=a&topic=b，凭证取 Authorization: Bearer 或 access_token 参数，
+ * 由 SseAuthenticator 校验并得出 userId（不接受客户端自报的 userId），凭证无效返回 401，无权订阅返回 403；
+ * clientId 为空时取 userId。响应头发出后连接保持打开，后续消息以 chunk 形式写出，连接断开时从 SseManager 移除；
+ * 鉴权、登记与移除可能访问 redis，均在握手线程池中执行，不阻塞 event loop，线程池已满时返回 503；
+ * 超过连接上限时返回只含 retry 提示的空事件流，浏览器退避后重连
+ */
+@Log4j2
+public class NettySseHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private static final String BEARER = "Bearer ";
+
+    private final SseManager manager;
+    private final SseAuthenticator authenticator;
+    private final String path;
+    private boolean handshaking;
+    private SseClient client;
+    private SseConnection connection;
+
+    public NettySseHandler(SseManager manager, SseAuthenticator authenticator, String path) {
+        this.manager = manager;
+        this.authenticator = authenticator;
+        this.path = path;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+        if (!path.equals(decoder.path())) {
+            reject(ctx, HttpResponseStatus.NOT_FOUND);
+            return;
+        }
+        if (!HttpMethod.GET.equals(request.method())) {
+            reject(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
+            return;
+        }
+        if (handshaking) {
+            // 同一连接上重复握手
+            reject(ctx, HttpResponseStatus.BAD_REQUEST);
+            return;
+        }
+        String token = token(request, decoder);
+        if (StringUtil.isBlank(token)) {
+            reject(ctx, HttpResponseStatus.UNAUTHORIZED);
+            return;
+        }
+        List<String> topics = new ArrayList<>();
+        for (String topic : decoder.parameters().getOrDefault("topic", List.of())) {
+            if (StringUtil.isNotBlank(topic)) {
+                topics.add(topic);
+            }
+        }
+        String lastEventId = lastEventId(request, decoder);
+        String clientId = param(decoder, "clientId");
+
+        handshaking = true;
+        // 凭证校验可能访问 redis 等外部存储，同样放到握手线程池
+        try {
+            manager.handshakeAsync(() -> authenticate(token, topics))
+                    .whenComplete((userId, e) -> ctx.executor().execute(() ->
+                            authenticated(ctx, clientId, userId, topics, lastEventId, e)));
+        } catch (RejectedExecutionException e) {
+            log.warn("SSE 握手线程池已满，拒绝连接 {}", ctx.channel().remoteAddress());
+            reject(ctx, HttpResponseStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * 校验凭证与订阅权限
+     *
+     * @return 用户 ID
+     * @throws ServerException UNAUTHORIZED 凭证无效；FORBIDDEN 无权订阅其中的 topic
+     */
+    private String authenticate(String token, List<String> topics) {
+        String userId = authenticator.authenticate(token);
+        if (StringUtil.isBlank(userId)) {
+            throw new ServerException(ErrorCode.UNAUTHORIZED);
+        }
+        for (String topic : topics) {
+            if (!authenticator.canSubscribe(userId, topic)) {
+                throw new ServerException(ErrorCode.FORBIDDEN);
+            }
+        }
+        return userId;
+    }
+
+    private void authenticated(ChannelHandlerContext ctx, String clientId, String userId, List<String> topics,
+                               String lastEventId, Throwable e) {
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        if (e != null) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ServerException se) {
+                reject(ctx, HttpResponseStatus.valueOf(se.getCode()));
+            } else {
+                log.error("SSE 连接 {} 鉴权失败: {}", ctx.channel().remoteAddress(), cause.getMessage());
+                reject(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+            }
+            return;
+        }
+        NettySseConnection connection = new NettySseConnection(ctx.channel());
+        this.connection = connection;
+        // 未指定 clientId 时每个用户只有一个连接；登记涉及 redis 访问，放到握手线程池执行，结果回到本 channel 的 event loop 处理
+        CompletableFuture<SseClient> registration;
+        try {
+            registration = manager.registerAsync(StringUtil.isBlank(clientId) ? userId : clientId, userId, topics,
+                    lastEventId, connection);
+        } catch (RejectedExecutionException ex) {
+            log.warn("SSE 握手线程池已满，拒绝连接 {}", ctx.channel().remoteAddress());
+            reject(ctx, HttpResponseStatus.SERVICE_UNAVAILABLE);
+            return;
+        }
+        // 登记线程写出的事件排在 event loop 任务队列中，一定晚于这里直接写出的响应头
+        ctx.writeAndFlush(streamResponse());
+        registration.whenComplete((registered, ex) ->
+                ctx.executor().execute(() -> registered(ctx, connection, registered, ex)));
+    }
+
+    private void registered(ChannelHandlerContext ctx, NettySseConnection connection, SseClient registered, Throwable e) {
+        if (e != null) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ServerException) {
+                // EventSource 遇到非 200 响应不再重连，这里正常结束流，让其按 retry 间隔退避
+                ctx.write(new DefaultHttpContent(Unpooled.wrappedBuffer(manager.rejectFrame().bytes())));
+                ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT).addListener(ChannelFutureListener.CLOSE);
+            } else {
+                log.error("SSE 连接 {} 登记失败: {}", ctx.channel().remoteAddress(), cause.getMessage());
+                ctx.close();
+            }
+            return;
+        }
+        if (!ctx.channel().isActive()) {
+            // 登记完成前连接已断开，channelInactive 时还没有 client 可移除
+            manager.removeClientAsync(registered, connection);
+            return;
+        }
+        client = registered;
+    }
+
+    private static HttpResponse streamResponse() {
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers()
+                .set(HttpHeaderNames.CONTENT_TYPE, "text/event-stream;charset=UTF-8")
+                .set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_CACHE)
+                .set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        HttpUtil.setTransferEncodingChunked(response, true);
+        return response;
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (client != null) {
+            manager.removeClientAsync(client, connection);
+            client = null;
+        }
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * 出站缓冲降到低水位以下，继续写出暂停期间积压在队列中的消息
+     */
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (client != null && ctx.channel().isWritable()) {
+            manager.resume(client);
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.error("SSE 连接 {} 异常: {}", ctx.channel().remoteAddress(), cause.getMessage());
+        ctx.close();
+    }
+
+    /**
+     * 握手凭证：优先 Authorization: Bearer，其次 access_token 参数
+     */
+    private static String token(FullHttpRequest request, QueryStringDecoder decoder) {
+        String authorization = request.headers().get(HttpHeaderNames.AUTHORIZATION);
+        if (authorization != null && authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return authorization.substring(BEARER.length()).trim();
+        }
+        return param(decoder, "access_token");
+    }
+
+    private static String lastEventId(FullHttpRequest request, QueryStringDecoder decoder) {
+        String lastEventId = request.headers().get(LAST_EVENT_ID_HEADER);
+        return StringUtil.isBlank(lastEventId) ? param(decoder, "lastEventId") : lastEventId;
+    }
+
+    private static String param(QueryStringDecoder decoder, String name) {
+        List<String> values = decoder.parameters().get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static void reject(ChannelHandlerContext ctx, HttpResponseStatus status) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
+                Unpooled.copiedBuffer(status.reasonPhrase(), StandardCharsets.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain;charset=UTF-8");
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    }
+}
@@ -0,0 +1,43 @@
+package com.mg.core.service.sse.netty;
+
+import com.mg.core.service.SseManager;
+import com.mg.core.service.sse.SseAuthenticator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+
+/**
+ * packageName com.mg.core.service.sse.netty
+ *
+ * @author mj
+ * @className NettySseInitializer
+ * @date 2026/10/19
+ * @description SSE 只有握手请求，聚合上限取较小值；开启压缩时按 Accept-Encoding 协商，每个 chunk 同步刷新，浏览器可逐条解出事件
+ */
+public class NettySseInitializer extends ChannelInitializer<Channel> {
+    private final SseManager manager;
+    private final SseAuthenticator authenticator;
+    private final String path;
+    private final boolean compression;
+
+    public NettySseInitializer(SseManager manager, SseAuthenticator authenticator, String path, boolean compression) {
+        this.manager = manager;
+        this.authenticator = authenticator;
+        this.path = path;
+        this.compression = compression;
+    }
+
+    @Override
+    protected void initChannel(Channel ch) {
+        ChannelPipeline p = ch.pipeline();
+        p.addLast(new HttpServerCodec());
+        if (compression) {
+            p.addLast(new HttpContentCompressor());
+        }
+        p.addLast(new HttpObjectAggregator(8192));
+        p.addLast(new NettySseHandler(manager, authenticator, path));
+    }
+}
@@ -0,0 +1,77 @@
+package com.mg.core.service.sse.netty;
+
+import com.mg.core.service.SseManager;
+import com.mg.core.service.sse.SseAuthenticator;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * packageName com.mg.core.service.sse.netty
+ * netty SSE 服务
+ *
+ * @author mj
+ * @className NettySseServer
+ * @date 2026/10/19
+ * @description 空闲连接只占用 channel 与少量缓冲，不占用线程；与 servlet SseEmitter 共用同一个 SseManager
+ */
+@Log4j2
+public class NettySseServer {
+    /**
+     * 单连接出站缓冲水位：超过高水位后连接不可写，暂停写出，消息留在客户端队列中（队列满时按溢出策略处理），
+     * 降到低水位以下后继续写出
+     */
+    private static final int LOW_WATER_MARK = 32 * 1024;
+    private static final int HIGH_WATER_MARK = 64 * 1024;
+
+    private final int port;
+    private final String path;
+    private final boolean compression;
+    private final SseManager manager;
+    private final SseAuthenticator authenticator;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+    private Channel serverChannel;
+
+    public NettySseServer(int port, String path, int workerThreads, boolean compression, SseManager manager,
+                          SseAuthenticator authenticator) {
+        this.port = port;
+        this.path = path;
+        this.compression = compression;
+        this.manager = manager;
+        this.authenticator = authenticator;
+        this.bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("sse-boss"));
+        this.workerGroup = new NioEventLoopGroup(workerThreads, new DefaultThreadFactory("sse-worker"));
+    }
+
+    @PostConstruct
+    public void start() throws InterruptedException {
+        ServerBootstrap b = new ServerBootstrap();
+        b.group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(LOW_WATER_MARK, HIGH_WATER_MARK))
+                .childHandler(new NettySseInitializer(manager, authenticator, path, compression));
+        serverChannel = b.bind(port).sync().channel();
+        log.info("SSE netty 服务已启动，端口 {}，路径 {}", port, path);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
+    }
+}
@@ -0,0 +1,263 @@
+package com.mg.loadtest;
+
+import com.mg.core.config.SseProperties;
+import com.mg.core.service.SseManager;
+import com.mg.core.service.sse.LocalSseBroker;
+import com.mg.core.service.sse.SseBroker;
+import com.mg.core.service.sse.netty.NettySseServer;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * packageName com.mg.loadtest
+ * SSE 空闲连接容量压测：逐步增加 netty SSE 长连接数，输出每个连接数下的内存、线程数与心跳覆盖率
+ * <p>
+ * 进程内启动 SseManager（单机 broker，不依赖 redis）与 NettySseServer，再用 netty 客户端建立空闲连接，
+ * 客户端只统计收到的数据，不做解析。单个源地址的临时端口只有约 2.8 万个，连接轮流绑定 127.0.0.1 起的多个回环地址。
+ * 需要 ulimit -n 大于 2 倍最大连接数（客户端与服务端各占一个文件描述符）。
+ * <p>
+ * 运行（在 common/common-core 目录下）：
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-Xmx4g -Dloadtest.max=100000 -Dloadtest.tag=$(git rev-parse --short HEAD) -cp %classpath com.mg.loadtest.SseIdleLoadTest"
+ * <p>
+ * 结果写入 sse-idle-{tag}.csv，同一台机器上按提交对比。
+ *
+ * @author mj
+ * @className SseIdleLoadTest
+ * @date 2026/10/19
+ * @description 堆与 RSS 为进程增量，包含客户端一侧的 channel 与缓冲，按连接均摊后是服务端开销的上界；
+ * 心跳覆盖率为一个心跳间隔加两个时间轮槽内收到过数据的连接占比，低于 100% 说明心跳或写出跟不上
+ */
+public class SseIdleLoadTest {
+    private static final String PATH = "/sse";
+    private static final AttributeKey<AtomicLong> LAST_READ = AttributeKey.valueOf("lastRead");
+    /**
+     * 握手完成（收到响应或连接关闭）时释放的并发名额
+     */
+    private static final AttributeKey<Runnable> ON_RESPONSE = AttributeKey.valueOf("onResponse");
+    /**
+     * 每个回环源地址承载的连接数，留出临时端口余量
+     */
+    private static final int CONNECTIONS_PER_SOURCE = 20_000;
+    /**
+     * 同时进行中的握手数，小于握手线程池队列容量，压测不触发 503
+     */
+    private static final int CONNECT_CONCURRENCY = 256;
+
+    public static void main(String[] args) throws Exception {
+        int step = Integer.getInteger("loadtest.step", 25_000);
+        int max = Integer.getInteger("loadtest.max", 100_000);
+        int port = Integer.getInteger("loadtest.port", 18081);
+        int workerThreads = Integer.getInteger("loadtest.workerThreads", 0);
+        String tag = System.getProperty("loadtest.tag", "local");
+
+        SseProperties properties = new SseProperties();
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean("taskExecutorService", ExecutorService.class,
+                () -> Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                        new DefaultThreadFactory("sse-task")));
+        context.registerBean(SseProperties.class, () -> properties);
+        context.registerBean(SseBroker.class, LocalSseBroker::new);
+        context.registerBean(SseManager.class);
+        context.refresh();
+        SseManager manager = context.getBean(SseManager.class);
+        // 压测凭证即用户 ID，每个连接一个用户，不触发单用户连接上限
+        NettySseServer server = new NettySseServer(port, PATH, workerThreads, false, manager, token -> token);
+        server.start();
+
+        EventLoopGroup clientGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("loadtest-client"));
+        Bootstrap bootstrap = new Bootstrap()
+                .group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.attr(LAST_READ).set(new AtomicLong());
+                        ch.pipeline().addLast(new IdleClient());
+                    }
+                });
+
+        List<Channel> channels = new ArrayList<>(max);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baselineHeap = usedHeapAfterGc(memory);
+        long baselineRssKb = rssKb();
+        // 心跳间隔 15 秒，时间轮每秒一槽，留两个槽的余量
+        long heartbeatWindowMillis = TimeUnit.SECONDS.toMillis(17);
+        Path out = Path.of("sse-idle-" + tag + ".csv");
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+            csv.println("connections,registered,connect_ms,heap_mb,rss_mb,heap_kb_per_conn,rss_kb_per_conn,threads,heartbeat_pct");
+            int n = 0;
+            while (n < max) {
+                n = Math.min(n + step, max);
+                long connectStart = System.nanoTime();
+                connect(bootstrap, channels, n, port);
+                awaitRegistered(manager, n);
+                long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart);
+
+                // 等过一个完整的心跳间隔，统计期间收到过数据的连接
+                long windowStart = System.currentTimeMillis();
+                TimeUnit.MILLISECONDS.sleep(heartbeatWindowMillis);
+                int heard = 0;
+                for (Channel ch : channels) {
+                    if (ch.attr(LAST_READ).get().get() >= windowStart) {
+                        heard++;
+                    }
+                }
+
+                long heap = usedHeapAfterGc(memory) - baselineHeap;
+                long rssKb = rssKb();
+                long rss = rssKb < 0 ? -1 : rssKb - baselineRssKb;
+                int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+                int registered = manager.getConnectionCount();
+                double heapPerConn = heap / 1024.0 / n;
+                double rssPerConn = rss < 0 ? -1 : rss / (double) n;
+                double heartbeatPct = heard * 100.0 / n;
+                csv.println(String.format(Locale.ROOT, "%d,%d,%d,%.1f,%.1f,%.2f,%.2f,%d,%.1f",
+                        n, registered, connectMillis, heap / 1024.0 / 1024, rss / 1024.0, heapPerConn, rssPerConn,
+                        threads, heartbeatPct));
+                csv.flush();
+                System.out.printf(Locale.ROOT, "connections=%d registered=%d connect=%dms heap/conn=%.2fKB rss/conn=%.2fKB threads=%d heartbeat=%.1f%%%n",
+                        n, registered, connectMillis, heapPerConn, rssPerConn, threads, heartbeatPct);
+            }
+        } finally {
+            for (Channel ch : channels) {
+                ch.close();
+            }
+            clientGroup.shutdownGracefully().syncUninterruptibly();
+            server.stop();
+            context.close();
+        }
+        System.out.println("结果已写入 " + out.toAbsolutePath());
+        System.exit(0);
+    }
+
+    /**
+     * 建立连接直到总数达到 target，源地址按连接序号轮换
+     */
+    private static void connect(Bootstrap bootstrap, List<Channel> channels, int target, int port)
+            throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONNECT_CONCURRENCY);
+        AtomicInteger failed = new AtomicInteger();
+        InetSocketAddress remote = new InetSocketAddress("127.0.0.1", port);
+        for (int i = channels.size(); i < target; i++) {
+            inFlight.acquire();
+            InetSocketAddress local = new InetSocketAddress("127.0.0." + (1 + i / CONNECTIONS_PER_SOURCE), 0);
+            ChannelFuture f = bootstrap.connect(remote, local);
+            channels.add(f.channel());
+            int userId = i;
+            f.channel().attr(ON_RESPONSE).set(inFlight::release);
+            f.addListener(done -> {
+                if (done.isSuccess()) {
+                    f.channel().writeAndFlush(handshake(port, userId));
+                } else {
+                    failed.incrementAndGet();
+                    responded(f.channel());
+                }
+            });
+        }
+        inFlight.acquire(CONNECT_CONCURRENCY);
+        if (failed.get() > 0) {
+            System.out.println("连接失败 " + failed.get() + " 个，检查 ulimit -n 与 net.ipv4.ip_local_port_range");
+        }
+    }
+
+    private static void responded(Channel ch) {
+        Runnable release = ch.attr(ON_RESPONSE).getAndSet(null);
+        if (release != null) {
+            release.run();
+        }
+    }
+
+    private static void awaitRegistered(SseManager manager, int target) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (manager.getConnectionCount() < target && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+    }
+
+    private static ByteBuf handshake(int port, int userId) {
+        String request = "GET " + PATH + "?topic=loadtest HTTP/1.1\r\n"
+                + "Host: 127.0.0.1:" + port + "\r\n"
+                + "Authorization: Bearer loadtest-user-" + userId + "\r\n"
+                + "Accept: text/event-stream\r\n\r\n";
+        return Unpooled.copiedBuffer(request, StandardCharsets.US_ASCII);
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 进程常驻内存（KB），非 Linux 返回 -1
+     */
+    private static long rssKb() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException ignored) {
+        }
+        return -1;
+    }
+
+    /**
+     * 空闲客户端：只记录最后一次收到数据的时间
+     */
+    private static final class IdleClient extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.channel().attr(LAST_READ).get().set(System.currentTimeMillis());
+            responded(ctx.channel());
+            ((ByteBuf) msg).release();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            responded(ctx.channel());
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.mg.redis.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * packageName com.mg.redis.cache
+ * redis 本地近端缓存
+ *
+ * @author mj
+ * @className RedisNearCache
+ * @date 2026/10/19
+ * @description 只缓存匹配配置模式（glob，支持 * 与 ?）的 key，按条数与写入后存活时间淘汰；
+ * 经 RedisUtil 写入/删除时先失效本地，再通过 redis topic 通知其它节点失效。不经 RedisUtil 的写入只能等 TTL 过期，
+ * 因此只适合读多写少的配置类数据。同一 key 的并发未命中只回源一次；回源期间的失效会等回源结束后再移除，不会留下旧值
+ */
+@Log4j2
+public class RedisNearCache {
+    /**
+     * 失效全部本地缓存的消息
+     */
+    private static final String INVALIDATE_ALL = "*";
+    /**
+     * 缓存 null，避免不存在的 key 每次都回源
+     */
+    private static final Object NULL = new Object();
+    /**
+     * 单个 hash 按需缓存的字段数上限，超过后按 LRU 近似淘汰，本地内存不超过 maximumSize * MAX_FIELDS 个字段
+     */
+    private static final int MAX_FIELDS = 1024;
+
+    private final Cache<String, Object> objects;
+    /**
+     * hash 按 key 整体缓存，字段按需加载（每个 hash 最多 MAX_FIELDS 个）；key 失效时整个 hash 一起失效
+     */
+    private final Cache<String, MapHolder> maps;
+    private final List<Pattern> patterns;
+    private final RTopic topic;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public RedisNearCache(RedissonClient client, String topicName, Collection<String> patterns,
+                          long maximumSize, Duration expireAfterWrite) {
+        this.objects = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite).build();
+        this.maps = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite).build();
+        this.patterns = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            this.patterns.add(compile(pattern));
+        }
+        this.topic = client.getTopic(topicName, StringCodec.INSTANCE);
+        this.topic.addListener(String.class, (channel, key) -> invalidateLocal(key));
+        log.info("redis 近端缓存已启用，patterns={}，maximumSize={}，ttl={}", patterns, maximumSize, expireAfterWrite);
+    }
+
+    /**
+     * key 是否启用近端缓存
+     */
+    public boolean matches(String key) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(key).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取对象，未命中时回源
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        Object value = objects.getIfPresent(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            value = objects.get(key, k -> {
+                misses.increment();
+                T loaded = loader.get();
+                return loaded == null ? NULL : loaded;
+            });
+        }
+        return value == NULL ? null : (T) value;
+    }
+
+    /**
+     * 读取 hash 字段，未命中时回源
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getField(String key, String field, Supplier<T> loader) {
+        MapHolder holder = maps.get(key, k -> new MapHolder());
+        Object value = holder.fields.getIfPresent(field);
+        if (value != null) {
+            hits.increment();
+        } else {
+            value = holder.fields.get(field, f -> {
+                misses.increment();
+                T loaded = loader.get();
+                return loaded == null ? NULL : loaded;
+            });
+        }
+        return value == NULL ? null : (T) value;
+    }
+
+    /**
+     * 读取整个 hash，未命中时回源；返回只读视图
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(String key, Supplier<Map<String, T>> loader) {
+        MapHolder holder = maps.get(key, k -> new MapHolder());
+        Map<String, ?> all = holder.all;
+        if (all != null) {
+            hits.increment();
+            return (Map<String, T>) all;
+        }
+        synchronized (holder) {
+            if (holder.all == null) {
+                misses.increment();
+                Map<String, T> loaded = loader.get();
+                holder.all = loaded == null ? Map.of() : Map.copyOf(loaded);
+            } else {
+                hits.increment();
+            }
+            return (Map<String, T>) holder.all;
+        }
+    }
+
+    /**
+     * 写入或删除后失效：本地立即失效，并异步通知其它节点，不阻塞调用线程
+     */
+    public void invalidate(String key) {
+        if (!matches(key)) {
+            return;
+        }
+        invalidateLocal(key);
+        topic.publishAsync(key);
+    }
+
+    /**
+     * 按模式删除等无法确定具体 key 的操作，失效全部节点的全部近端缓存
+     */
+    public void invalidateAll() {
+        invalidateLocal(INVALIDATE_ALL);
+        topic.publishAsync(INVALIDATE_ALL);
+    }
+
+    private void invalidateLocal(String key) {
+        invalidations.increment();
+        if (INVALIDATE_ALL.equals(key)) {
+            objects.invalidateAll();
+            maps.invalidateAll();
+            return;
+        }
+        objects.invalidate(key);
+        maps.invalidate(key);
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), invalidations.sum(), objects.estimatedSize() + maps.estimatedSize());
+    }
+
+    private static Pattern compile(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 8);
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * 命中/未命中/失效次数与当前条目数
+     */
+    public record Stats(long hits, long misses, long invalidations, long size) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private static final class MapHolder {
+        private final Cache<String, Object> fields = Caffeine.newBuilder().maximumSize(MAX_FIELDS).build();
+        private volatile Map<String, ?> all;
+    }
+}
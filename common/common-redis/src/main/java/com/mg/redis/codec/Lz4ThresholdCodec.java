@@ -0,0 +1,111 @@
+package com.mg.redis.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.handler.State;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+
+import java.io.IOException;
+
+/**
+ * packageName com.mg.redis.codec
+ * 超过阈值才压缩的 lz4 编码
+ *
+ * @author mj
+ * @className Lz4ThresholdCodec
+ * @date 2026/10/19
+ * @description 内层编码结果小于阈值时原样写出，否则 lz4 压缩；首字节标记是否压缩，压缩时紧跟 4 字节原始长度。
+ * 小值压缩收益低且白耗 CPU，因此按阈值区分。带标记字节的格式与未压缩的旧数据不兼容，启用时应配合新的 key 前缀
+ */
+public class Lz4ThresholdCodec extends BaseCodec {
+    private static final byte RAW = 0;
+    private static final byte COMPRESSED = 1;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final Codec inner;
+    private final int threshold;
+
+    private final Encoder encoder = new Encoder() {
+        @Override
+        public ByteBuf encode(Object in) throws IOException {
+            ByteBuf raw = inner.getValueEncoder().encode(in);
+            try {
+                int length = raw.readableBytes();
+                if (length < threshold) {
+                    ByteBuf out = ByteBufAllocator.DEFAULT.buffer(length + 1);
+                    out.writeByte(RAW);
+                    out.writeBytes(raw);
+                    return out;
+                }
+                byte[] source = new byte[length];
+                raw.readBytes(source);
+                byte[] target = new byte[COMPRESSOR.maxCompressedLength(length)];
+                int compressed = COMPRESSOR.compress(source, 0, length, target, 0, target.length);
+                ByteBuf out = ByteBufAllocator.DEFAULT.buffer(compressed + 5);
+                out.writeByte(COMPRESSED);
+                out.writeInt(length);
+                out.writeBytes(target, 0, compressed);
+                return out;
+            } finally {
+                raw.release();
+            }
+        }
+    };
+
+    private final Decoder<Object> decoder = new Decoder<>() {
+        @Override
+        public Object decode(ByteBuf buf, State state) throws IOException {
+            byte flag = buf.readByte();
+            if (flag == RAW) {
+                return inner.getValueDecoder().decode(buf, state);
+            }
+            int length = buf.readInt();
+            byte[] source = new byte[buf.readableBytes()];
+            buf.readBytes(source);
+            byte[] target = new byte[length];
+            DECOMPRESSOR.decompress(source, 0, target, 0, length);
+            ByteBuf decompressed = Unpooled.wrappedBuffer(target);
+            try {
+                return inner.getValueDecoder().decode(decompressed, state);
+            } finally {
+                decompressed.release();
+            }
+        }
+    };
+
+    public Lz4ThresholdCodec(Codec inner, int threshold) {
+        this.inner = inner;
+        this.threshold = threshold;
+    }
+
+    /**
+     * redisson 按需以 (ClassLoader, 原实例) 复制 codec
+     */
+    public Lz4ThresholdCodec(ClassLoader classLoader, Lz4ThresholdCodec codec) throws ReflectiveOperationException {
+        this(copy(classLoader, codec.inner), codec.threshold);
+    }
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return inner.getClassLoader();
+    }
+}
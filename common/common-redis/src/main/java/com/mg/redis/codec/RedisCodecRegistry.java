@@ -0,0 +1,90 @@
+package com.mg.redis.codec;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.codec.CompositeCodec;
+import org.redisson.codec.TypedJsonJacksonCodec;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * packageName com.mg.redis.codec
+ * 按 key 前缀选择 redis 编码
+ *
+ * @author mj
+ * @className RedisCodecRegistry
+ * @date 2026/10/19
+ * @description 默认编码作为 redisson 全局 codec；配置了前缀的 key 由 RedisUtil 以对应编码读写，前缀按最长匹配。
+ * 每种格式只创建一个 codec 实例，key 统一为字符串，值超过压缩阈值时 lz4 压缩
+ */
+public class RedisCodecRegistry {
+    private final Codec defaultCodec;
+    private final List<Map.Entry<String, Codec>> prefixes = new ArrayList<>();
+
+    /**
+     * @param defaultType       默认编码
+     * @param prefixTypes       key 前缀 -> 编码
+     * @param compressThreshold 压缩阈值（字节），小于等于 0 不压缩
+     */
+    public RedisCodecRegistry(RedisCodecType defaultType, Map<String, RedisCodecType> prefixTypes, int compressThreshold) {
+        Map<RedisCodecType, Codec> codecs = new EnumMap<>(RedisCodecType.class);
+        this.defaultCodec = codecs.computeIfAbsent(defaultType, type -> create(type, compressThreshold));
+        prefixTypes.forEach((prefix, type) ->
+                prefixes.add(Map.entry(prefix, codecs.computeIfAbsent(type, t -> create(t, compressThreshold)))));
+        // 长前缀优先
+        prefixes.sort(Comparator.comparingInt((Map.Entry<String, Codec> e) -> e.getKey().length()).reversed());
+    }
+
+    public Codec defaultCodec() {
+        return defaultCodec;
+    }
+
+    /**
+     * key 对应的编码，没有匹配的前缀时返回默认编码
+     */
+    public Codec resolve(String key) {
+        for (Map.Entry<String, Codec> entry : prefixes) {
+            if (key.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return defaultCodec;
+    }
+
+    private static Codec create(RedisCodecType type, int compressThreshold) {
+        Codec value = new TypedJsonJacksonCodec(Object.class, objectMapper(type));
+        if (compressThreshold > 0) {
+            value = new Lz4ThresholdCodec(value, compressThreshold);
+        }
+        // 组合序列化 key 使用 String 内容使用指定格式
+        return new CompositeCodec(StringCodec.INSTANCE, value, value);
+    }
+
+    private static ObjectMapper objectMapper(RedisCodecType type) {
+        JavaTimeModule javaTimeModule = new JavaTimeModule();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        javaTimeModule.addSerializer(LocalDateTime.class, new LocalDateTimeSerializer(formatter));
+        javaTimeModule.addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer(formatter));
+        ObjectMapper om = new ObjectMapper(type.factory());
+        om.registerModule(javaTimeModule);
+        om.setTimeZone(TimeZone.getDefault());
+        om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        // 指定序列化输入的类型，类必须是非final修饰的。序列化时将对象全类名一起保存下来
+        om.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        return om;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mg.redis.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.util.Locale;
+
+/**
+ * packageName com.mg.redis.codec
+ * redis 值编码格式
+ *
+ * @author mj
+ * @className RedisCodecType
+ * @date 2026/10/19
+ * @description 三种格式共用同一套 Jackson 配置与类型信息，只有字节格式不同；
+ * SMILE 默认只对重复的字段名做回引用，这里另外开启了短字符串值（不超过 64 字节）的回引用，
+ * 类型信息中重复出现的类名也会共享；头部带有该标记，读取端无需额外配置。SMILE/CBOR 需引入对应的 jackson-dataformat 依赖
+ */
+public enum RedisCodecType {
+    /**
+     * 文本 JSON，redis-cli 可直接查看
+     */
+    JSON,
+    /**
+     * 二进制 JSON（Smile）
+     */
+    SMILE,
+    /**
+     * CBOR（RFC 8949）
+     */
+    CBOR;
+
+    /**
+     * 二进制格式的工厂放在各自的持有类中，只有选用该格式时才加载对应依赖；
+     * 直接在 switch 中返回 SmileFactory/CBORFactory 会让校验器在链接本枚举时就加载它们，未引入依赖时 JSON 也无法使用
+     */
+    JsonFactory factory() {
+        try {
+            return switch (this) {
+                case JSON -> new JsonFactory();
+                case SMILE -> Smile.create();
+                case CBOR -> Cbor.create();
+            };
+        } catch (NoClassDefFoundError e) {
+            throw new IllegalStateException("使用 " + this + " 编码需引入 jackson-dataformat-" + name().toLowerCase(Locale.ROOT), e);
+        }
+    }
+
+    private static final class Smile {
+        static JsonFactory create() {
+            return SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+        }
+    }
+
+    private static final class Cbor {
+        static JsonFactory create() {
+            return new CBORFactory();
+        }
+    }
+}
@@ -1,30 +1,24 @@
 package com.mg.redis.config;
 
 
-import com.fasterxml.jackson.annotation.JsonAutoDetect;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
-import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.mg.redis.cache.RedisNearCache;
+import com.mg.redis.codec.RedisCodecRegistry;
 import com.mg.redis.config.properties.RedissonProperties;
 import com.mg.redis.handler.KeyPrefixHandler;
+import com.mg.redis.limiter.RedisRateLimiter;
+import com.mg.redis.messaging.RedisMessaging;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.client.codec.StringCodec;
-import org.redisson.codec.CompositeCodec;
-import org.redisson.codec.TypedJsonJacksonCodec;
+import org.redisson.api.RedissonClient;
 import org.redisson.spring.starter.RedissonAutoConfigurationCustomizer;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.util.ObjectUtils;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.TimeZone;
+import java.time.Duration;
 
 /**
  * redis配置
@@ -37,27 +31,23 @@ public class RedisConfiguration {
     @Resource
     private RedissonProperties redissonProperties;
 
+    /**
+     * 值编码：默认编码与按 key 前缀选择的编码
+     */
+    @Bean
+    public RedisCodecRegistry redisCodecRegistry() {
+        RedissonProperties.CodecConfig codec = redissonProperties.getCodec();
+        return new RedisCodecRegistry(codec.getType(), codec.getPrefixes(), codec.getCompressThreshold());
+    }
+
     @Bean
-    public RedissonAutoConfigurationCustomizer redissonCustomizer() {
+    public RedissonAutoConfigurationCustomizer redissonCustomizer(RedisCodecRegistry codecRegistry) {
         return config -> {
-            JavaTimeModule javaTimeModule = new JavaTimeModule();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            javaTimeModule.addSerializer(LocalDateTime.class, new LocalDateTimeSerializer(formatter));
-            javaTimeModule.addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer(formatter));
-            ObjectMapper om = new ObjectMapper();
-            om.registerModule(javaTimeModule);
-            om.setTimeZone(TimeZone.getDefault());
-            om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-            // 指定序列化输入的类型，类必须是非final修饰的。序列化时将对象全类名一起保存下来
-            om.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
-            TypedJsonJacksonCodec jsonCodec = new TypedJsonJacksonCodec(Object.class, om);
-            // 组合序列化 key 使用 String 内容使用通用 json 格式
-            CompositeCodec codec = new CompositeCodec(StringCodec.INSTANCE, jsonCodec, jsonCodec);
             config.setThreads(redissonProperties.getThreads())
                     .setNettyThreads(redissonProperties.getNettyThreads())
                     // 缓存 Lua 脚本 减少网络传输(redisson 大部分的功能都是基于 Lua 脚本实现)
                     .setUseScriptCache(true)
-                    .setCodec(codec);
+                    .setCodec(codecRegistry.defaultCodec());
             // 设置看门狗超时时间为60秒（默认30秒）
             config.setLockWatchdogTimeout(60 * 1000);
             // 检查是否支持虚拟线程，如果支持则使用虚拟线程执行器
@@ -70,7 +60,7 @@ public class RedisConfiguration {
                 // 使用单机模式
                 config.useSingleServer()
                         //设置redis key前缀
-                        .setNameMapper(new KeyPrefixHandler(redissonProperties.getKeyPrefix()))
+                        .setNameMapper(new KeyPrefixHandler(redissonProperties.getKeyPrefix(), redissonProperties.getFixedKeyNames()))
                         .setTimeout(singleServerConfig.getTimeout())
                         .setClientName(singleServerConfig.getClientName())
                         .setIdleConnectionTimeout(singleServerConfig.getIdleConnectionTimeout())
@@ -83,7 +73,7 @@ public class RedisConfiguration {
             if (!ObjectUtils.isEmpty(clusterServersConfig)) {
                 config.useClusterServers()
                         //设置redis key前缀
-                        .setNameMapper(new KeyPrefixHandler(redissonProperties.getKeyPrefix()))
+                        .setNameMapper(new KeyPrefixHandler(redissonProperties.getKeyPrefix(), redissonProperties.getFixedKeyNames()))
                         .setTimeout(clusterServersConfig.getTimeout())
                         .setClientName(clusterServersConfig.getClientName())
                         .setIdleConnectionTimeout(clusterServersConfig.getIdleConnectionTimeout())
@@ -99,6 +89,35 @@ public class RedisConfiguration {
         };
     }
 
+    /**
+     * 分布式限流，限流脚本在此预加载
+     */
+    @Bean
+    public RedisRateLimiter redisRateLimiter(RedissonClient redissonClient) {
+        return new RedisRateLimiter(redissonClient, redissonProperties.getRateLimiter().isLocalPreCheck());
+    }
+
+    /**
+     * 发布订阅：本地有界分发与按通道统计
+     */
+    @Bean(destroyMethod = "shutdown")
+    public RedisMessaging redisMessaging(RedissonClient redissonClient) {
+        RedissonProperties.Messaging messaging = redissonProperties.getMessaging();
+        return new RedisMessaging(redissonClient, messaging.isSharded(), messaging.getDispatchThreads(),
+                messaging.getQueueCapacity());
+    }
+
+    /**
+     * 本地近端缓存，RedisUtil 读取匹配模式的 key 时优先命中本地
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "redisson.near-cache", name = "enable", havingValue = "true")
+    public RedisNearCache redisNearCache(RedissonClient redissonClient) {
+        RedissonProperties.NearCache nearCache = redissonProperties.getNearCache();
+        return new RedisNearCache(redissonClient, nearCache.getTopic(), nearCache.getPatterns(),
+                nearCache.getMaximumSize(), Duration.ofMillis(nearCache.getExpireAfterWrite()));
+    }
+
 
     /*
       redis集群配置 yml
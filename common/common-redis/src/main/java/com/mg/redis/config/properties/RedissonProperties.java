@@ -1,11 +1,17 @@
 package com.mg.redis.config.properties;
 
+import com.mg.redis.codec.RedisCodecType;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.redisson.config.ReadMode;
 import org.redisson.config.SubscriptionMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Redisson 配置属性
  */
@@ -18,6 +24,12 @@ public class RedissonProperties {
      */
     private String keyPrefix;
 
+    /**
+     * 频繁访问的固定 key（不含前缀，如通道名、锁名），启动时拼好前缀，访问时不再拼接字符串；
+     * 只应配置固定名称，按 id 拼出的动态 key 不要放进来
+     */
+    private List<String> fixedKeyNames = new ArrayList<>();
+
     /**
      * 线程池数量,默认值 = 当前处理核数量 * 2
      */
@@ -38,6 +50,110 @@ public class RedissonProperties {
      */
     private ClusterServersConfig clusterServersConfig;
 
+    /**
+     * 值编码
+     */
+    private CodecConfig codec = new CodecConfig();
+
+    /**
+     * 分布式限流
+     */
+    private RateLimiter rateLimiter = new RateLimiter();
+
+    /**
+     * 发布订阅
+     */
+    private Messaging messaging = new Messaging();
+
+    /**
+     * 本地近端缓存
+     */
+    private NearCache nearCache = new NearCache();
+
+    @Data
+    @NoArgsConstructor
+    public static class CodecConfig {
+
+        /**
+         * 默认编码，修改会导致已有数据无法读取，新格式建议先按前缀启用
+         */
+        private RedisCodecType type = RedisCodecType.JSON;
+
+        /**
+         * key 前缀 -> 编码，最长前缀优先
+         */
+        private Map<String, RedisCodecType> prefixes = new LinkedHashMap<>();
+
+        /**
+         * 值超过该字节数时 lz4 压缩，0 表示不压缩；开启后与未压缩的旧数据不兼容
+         */
+        private int compressThreshold = 0;
+
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class RateLimiter {
+
+        /**
+         * 是否开启本地预检：被拒绝的 key 在等待时间内本地直接拒绝，不访问 redis
+         */
+        private boolean localPreCheck = true;
+
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Messaging {
+
+        /**
+         * 是否使用分片发布订阅（SPUBLISH），仅 redis 7 集群模式下开启
+         */
+        private boolean sharded = false;
+
+        /**
+         * 本地分发线程数
+         */
+        private int dispatchThreads = 4;
+
+        /**
+         * 单个通道待分发消息上限，超出后丢弃
+         */
+        private int queueCapacity = 10000;
+
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class NearCache {
+
+        /**
+         * 是否启用
+         */
+        private boolean enable = false;
+
+        /**
+         * 启用近端缓存的 key 模式（glob，支持 * 与 ?），不匹配的 key 直接读 redis
+         */
+        private List<String> patterns = new ArrayList<>();
+
+        /**
+         * 最大条目数
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * 写入后存活时间，单位：毫秒；也是未经 RedisUtil 写入时的最长不一致时间
+         */
+        private long expireAfterWrite = 60000;
+
+        /**
+         * 失效通知 topic
+         */
+        private String topic = "near-cache:invalidate";
+
+    }
+
     @Data
     @NoArgsConstructor
     public static class SingleServerConfig {
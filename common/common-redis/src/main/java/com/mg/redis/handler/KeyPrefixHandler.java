@@ -1,17 +1,58 @@
 package com.mg.redis.handler;
 
 
-import io.micrometer.common.util.StringUtils;
 import org.redisson.api.NameMapper;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * redis缓存key前缀处理
+ * <p>
+ * 每个 redisson 操作都会调用 map，是所有 redis 访问的热点路径：前缀在构造时算好，没有前缀时直接返回原名；
+ * 配置的固定名称在构造时拼好前缀，命中后不再拼接字符串。缓存只含配置的名称，大小固定，动态 key 照常拼接
  */
-public record KeyPrefixHandler(String keyPrefix) implements NameMapper {
+public final class KeyPrefixHandler implements NameMapper {
+    private final String keyPrefix;
+    private final boolean enabled;
+    /**
+     * 固定名称 -> 带前缀的名称，构造后只读
+     */
+    private final Map<String, String> fixed;
+    /**
+     * 固定名称长度的位图，长度 63 及以上共用最高位；长度不匹配的名称不查表，动态 key 基本不多付查表开销
+     */
+    private final long fixedLengths;
 
     public KeyPrefixHandler(String keyPrefix) {
+        this(keyPrefix, List.of());
+    }
+
+    /**
+     * @param fixedNames 频繁访问的固定名称（不含前缀）
+     */
+    public KeyPrefixHandler(String keyPrefix, Collection<String> fixedNames) {
         //前缀为空 则返回空前缀
-        this.keyPrefix = StringUtils.isBlank(keyPrefix) ? "" : keyPrefix + ":";
+        this.keyPrefix = keyPrefix == null || keyPrefix.isBlank() ? "" : keyPrefix + ":";
+        this.enabled = !this.keyPrefix.isEmpty();
+        Map<String, String> mapped = new HashMap<>();
+        long lengths = 0;
+        if (enabled && fixedNames != null) {
+            for (String name : fixedNames) {
+                if (name != null && !name.isBlank()) {
+                    mapped.put(name, prefix(name));
+                    lengths |= name.length() < 64 ? 1L << name.length() : Long.MIN_VALUE;
+                }
+            }
+        }
+        this.fixed = Map.copyOf(mapped);
+        this.fixedLengths = lengths;
+    }
+
+    public String keyPrefix() {
+        return keyPrefix;
     }
 
     /**
@@ -19,13 +60,24 @@ public record KeyPrefixHandler(String keyPrefix) implements NameMapper {
      */
     @Override
     public String map(String name) {
-        if (StringUtils.isBlank(name)) {
+        if (name == null || name.isBlank()) {
             return null;
         }
-        if (StringUtils.isNotBlank(keyPrefix) && !name.startsWith(keyPrefix)) {
-            return keyPrefix + name;
+        if (!enabled) {
+            return name;
         }
-        return name;
+        int length = name.length();
+        if ((fixedLengths & (length < 64 ? 1L << length : Long.MIN_VALUE)) != 0) {
+            String result = fixed.get(name);
+            if (result != null) {
+                return result;
+            }
+        }
+        return prefix(name);
+    }
+
+    private String prefix(String name) {
+        return name.startsWith(keyPrefix) ? name : keyPrefix.concat(name);
     }
 
     /**
@@ -33,10 +85,10 @@ public record KeyPrefixHandler(String keyPrefix) implements NameMapper {
      */
     @Override
     public String unmap(String name) {
-        if (StringUtils.isBlank(name)) {
+        if (name == null || name.isBlank()) {
             return null;
         }
-        if (StringUtils.isNotBlank(keyPrefix) && name.startsWith(keyPrefix)) {
+        if (enabled && name.startsWith(keyPrefix)) {
             return name.substring(keyPrefix.length());
         }
         return name;
@@ -0,0 +1,81 @@
+package com.mg.redis.limiter;
+
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * packageName com.mg.redis.limiter
+ * 预加载的 lua 脚本
+ *
+ * @author mj
+ * @className LuaScript
+ * @date 2026/10/19
+ * @description 启动时 SCRIPT LOAD 得到 SHA，调用时只发送 EVALSHA 与参数，不再每次发送脚本全文；
+ * redis 重启或主从切换后脚本缓存丢失（NOSCRIPT），重新加载后重试一次；异步调用同样处理，全程不阻塞调用线程
+ */
+class LuaScript {
+    private final String source;
+    private volatile String sha;
+
+    LuaScript(String source) {
+        this.source = source;
+    }
+
+    String load(RedissonClient client) {
+        String loaded = client.getScript(StringCodec.INSTANCE).scriptLoad(source);
+        sha = loaded;
+        return loaded;
+    }
+
+    <R> R eval(RedissonClient client, RScript.ReturnType returnType, List<Object> keys, Object... args) {
+        RScript script = client.getScript(StringCodec.INSTANCE);
+        String current = sha;
+        if (current == null) {
+            current = load(client);
+        }
+        try {
+            return script.evalSha(RScript.Mode.READ_WRITE, current, returnType, keys, args);
+        } catch (RedisException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("NOSCRIPT")) {
+                throw e;
+            }
+            return script.evalSha(RScript.Mode.READ_WRITE, load(client), returnType, keys, args);
+        }
+    }
+
+    /**
+     * 异步执行，回调在 redisson 的 I/O 线程中完成
+     */
+    <R> CompletableFuture<R> evalAsync(RedissonClient client, RScript.ReturnType returnType, List<Object> keys,
+                                       Object... args) {
+        RScript script = client.getScript(StringCodec.INSTANCE);
+        String current = sha;
+        CompletionStage<String> loaded = current == null ? loadAsync(client) : CompletableFuture.completedFuture(current);
+        return loaded
+                .thenCompose(s -> script.<R>evalShaAsync(RScript.Mode.READ_WRITE, s, returnType, keys, args))
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (!(cause instanceof RedisException) || cause.getMessage() == null
+                            || !cause.getMessage().contains("NOSCRIPT")) {
+                        return CompletableFuture.failedStage(cause);
+                    }
+                    return loadAsync(client).thenCompose(s ->
+                            script.<R>evalShaAsync(RScript.Mode.READ_WRITE, s, returnType, keys, args));
+                })
+                .toCompletableFuture();
+    }
+
+    private CompletionStage<String> loadAsync(RedissonClient client) {
+        return client.getScript(StringCodec.INSTANCE).scriptLoadAsync(source).thenApply(loaded -> {
+            sha = loaded;
+            return loaded;
+        });
+    }
+}
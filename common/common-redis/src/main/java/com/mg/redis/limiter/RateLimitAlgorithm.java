@@ -0,0 +1,103 @@
+package com.mg.redis.limiter;
+
+/**
+ * packageName com.mg.redis.limiter
+ * 限流算法
+ *
+ * @author mj
+ * @className RateLimitAlgorithm
+ * @date 2026/10/19
+ * @description 脚本参数统一为 KEYS[1]=限流 key，ARGV=窗口(微秒)、limit、burst、本次许可数；
+ * 时间取 redis 服务端 TIME，避免各节点时钟偏差。返回 {等待毫秒数, 剩余许可数}，等待为 0 表示放行。
+ * 每个 key 状态为常数大小，与 limit 无关
+ */
+public enum RateLimitAlgorithm {
+    SLIDING_WINDOW("""
+            local key = KEYS[1]
+            local window = tonumber(ARGV[1])
+            local limit = tonumber(ARGV[2])
+            local permits = tonumber(ARGV[4])
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000000 + tonumber(t[2])
+            local idx = math.floor(now / window)
+            local elapsed = now - idx * window
+            local data = redis.call('HMGET', key, 'idx', 'cur', 'prev')
+            local last = tonumber(data[1])
+            local cur = tonumber(data[2]) or 0
+            local prev = tonumber(data[3]) or 0
+            if last ~= idx then
+              if last == idx - 1 then prev = cur else prev = 0 end
+              cur = 0
+            end
+            local estimate = prev * (1 - elapsed / window) + cur + permits
+            if estimate <= limit then
+              redis.call('HSET', key, 'idx', string.format('%.0f', idx), 'cur', cur + permits, 'prev', prev)
+              redis.call('PEXPIRE', key, math.ceil(window * 2 / 1000))
+              return {0, math.floor(limit - estimate)}
+            end
+            local wait
+            if prev > 0 and cur + permits <= limit then
+              wait = window * (1 - (limit - cur - permits) / prev) - elapsed
+            else
+              local decay = 0
+              if cur > 0 then decay = math.max(0, window * (1 - (limit - permits) / cur)) end
+              wait = window - elapsed + decay
+            end
+            return {math.max(1, math.ceil(wait / 1000)), 0}
+            """),
+    GCRA("""
+            local key = KEYS[1]
+            local window = tonumber(ARGV[1])
+            local limit = tonumber(ARGV[2])
+            local burst = tonumber(ARGV[3])
+            local permits = tonumber(ARGV[4])
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000000 + tonumber(t[2])
+            local emission = window / limit
+            local tolerance = emission * burst
+            local tat = tonumber(redis.call('GET', key)) or now
+            if tat < now then tat = now end
+            local backlog = tat + emission * permits - now
+            if backlog > tolerance then
+              return {math.max(1, math.ceil((backlog - tolerance) / 1000)), 0}
+            end
+            redis.call('SET', key, string.format('%.0f', now + backlog), 'PX', math.max(1, math.ceil(backlog / 1000)))
+            return {0, math.floor((tolerance - backlog) / emission)}
+            """),
+    TOKEN_BUCKET("""
+            local key = KEYS[1]
+            local window = tonumber(ARGV[1])
+            local limit = tonumber(ARGV[2])
+            local burst = tonumber(ARGV[3])
+            local permits = tonumber(ARGV[4])
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000000 + tonumber(t[2])
+            local rate = limit / window
+            local data = redis.call('HMGET', key, 'tokens', 'ts')
+            local tokens = tonumber(data[1])
+            local ts = tonumber(data[2])
+            if tokens == nil or ts == nil then
+              tokens = burst
+              ts = now
+            end
+            if now > ts then tokens = math.min(burst, tokens + (now - ts) * rate) end
+            if tokens < permits then
+              return {math.max(1, math.ceil((permits - tokens) / rate / 1000)), math.floor(tokens)}
+            end
+            tokens = tokens - permits
+            redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', string.format('%.0f', now))
+            redis.call('PEXPIRE', key, math.ceil((burst - tokens) / rate / 1000) + 1)
+            return {0, math.floor(tokens)}
+            """);
+
+    private final LuaScript script;
+
+    RateLimitAlgorithm(String source) {
+        // redis 5 以下需显式开启命令复制，脚本中才能在 TIME 之后写入
+        this.script = new LuaScript("if redis.replicate_commands then redis.replicate_commands() end\n" + source);
+    }
+
+    LuaScript script() {
+        return script;
+    }
+}
@@ -0,0 +1,22 @@
+package com.mg.redis.limiter;
+
+/**
+ * packageName com.mg.redis.limiter
+ * 限流结果
+ *
+ * @author mj
+ * @className RateLimitResult
+ * @date 2026/10/19
+ * @description remaining 为本次判定后剩余可立即申请的许可数；retryAfterMillis 为被拒绝时至少需要等待的毫秒数
+ * （没有新请求时的精确值），允许时为 0；local 表示由本地预检直接拒绝，未访问 redis
+ */
+public record RateLimitResult(boolean allowed, long remaining, long retryAfterMillis, boolean local) {
+
+    static RateLimitResult allowed(long remaining) {
+        return new RateLimitResult(true, remaining, 0, false);
+    }
+
+    static RateLimitResult rejected(long remaining, long retryAfterMillis, boolean local) {
+        return new RateLimitResult(false, remaining, retryAfterMillis, local);
+    }
+}
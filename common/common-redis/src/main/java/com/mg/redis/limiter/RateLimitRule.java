@@ -0,0 +1,50 @@
+package com.mg.redis.limiter;
+
+import java.time.Duration;
+
+/**
+ * packageName com.mg.redis.limiter
+ * 限流规则
+ *
+ * @author mj
+ * @className RateLimitRule
+ * @date 2026/10/19
+ * @description 统一以“窗口内 limit 个请求”描述速率，burst 为允许的瞬时突发量：
+ * GCRA 与令牌桶按 limit/window 匀速放行、最多突发 burst 个；滑动窗口计数忽略 burst
+ */
+public record RateLimitRule(RateLimitAlgorithm algorithm, long limit, Duration window, long burst) {
+
+    public RateLimitRule {
+        if (limit <= 0 || burst <= 0 || window.isZero() || window.isNegative()) {
+            throw new IllegalArgumentException("限流规则参数必须为正数");
+        }
+    }
+
+    /**
+     * 滑动窗口计数：当前窗口计数 + 上一窗口计数按剩余比例加权，每个 key 只占一个 hash
+     */
+    public static RateLimitRule slidingWindow(long limit, Duration window) {
+        return new RateLimitRule(RateLimitAlgorithm.SLIDING_WINDOW, limit, window, limit);
+    }
+
+    /**
+     * GCRA：每个 key 只存一个理论到达时间，平滑放行
+     */
+    public static RateLimitRule gcra(long limit, Duration window, long burst) {
+        return new RateLimitRule(RateLimitAlgorithm.GCRA, limit, window, burst);
+    }
+
+    /**
+     * 令牌桶：容量 burst，按 limit/window 补充
+     */
+    public static RateLimitRule tokenBucket(long limit, Duration window, long burst) {
+        return new RateLimitRule(RateLimitAlgorithm.TOKEN_BUCKET, limit, window, burst);
+    }
+
+    /**
+     * 单次最多可申请的许可数
+     */
+    long capacity() {
+        return algorithm == RateLimitAlgorithm.SLIDING_WINDOW ? limit : burst;
+    }
+}
@@ -0,0 +1,78 @@
+package com.mg.redis.limiter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.redisson.api.RateType;
+import org.redisson.api.RedissonClient;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * packageName com.mg.redis.limiter
+ * 令牌桶限流注册表
+ *
+ * @author mj
+ * @className RateLimiterRegistry
+ * @date 2026/10/19
+ * @description 每个 key 的限流规则只在首次使用（或速率变化）时解析一次并缓存，之后每次请求只有一次 EVALSHA，
+ * 同时返回是否放行与剩余许可数；规则随脚本参数传递，redis 中不保存配置，也就不存在每次请求改写配置的问题。
+ * PER_CLIENT 按 redisson 客户端 ID 区分 key，与 RRateLimiter 语义一致
+ */
+public class RateLimiterRegistry {
+    private static final int MAX_KEYS = 10000;
+
+    private final RedisRateLimiter limiter;
+    private final String clientId;
+    private final Cache<String, Registration> registrations =
+            Caffeine.newBuilder().maximumSize(MAX_KEYS).build();
+
+    public RateLimiterRegistry(RedissonClient client, RedisRateLimiter limiter) {
+        this.limiter = limiter;
+        this.clientId = client.getId();
+    }
+
+    /**
+     * 申请一个许可
+     *
+     * @param rate     窗口内允许的请求数，同时也是可突发的最大许可数
+     * @param interval 窗口
+     * @return 剩余许可数，-1 表示被限流
+     */
+    public long tryAcquire(String key, RateType rateType, long rate, Duration interval) {
+        Registration registration = registration(key, rateType, rate, interval);
+        return remaining(limiter.tryAcquire(registration.redisKey(), registration.rule()));
+    }
+
+    /**
+     * 异步申请一个许可
+     *
+     * @return 剩余许可数，-1 表示被限流
+     */
+    public CompletableFuture<Long> tryAcquireAsync(String key, RateType rateType, long rate, Duration interval) {
+        Registration registration = registration(key, rateType, rate, interval);
+        return limiter.tryAcquireAsync(registration.redisKey(), registration.rule(), 1)
+                .thenApply(RateLimiterRegistry::remaining);
+    }
+
+    private Registration registration(String key, RateType rateType, long rate, Duration interval) {
+        Registration registration = registrations.getIfPresent(key);
+        if (registration == null || !registration.matches(rateType, rate, interval)) {
+            registration = new Registration(rateType == RateType.PER_CLIENT ? key + ":" + clientId : key,
+                    rateType, RateLimitRule.tokenBucket(rate, interval, rate));
+            registrations.put(key, registration);
+        }
+        return registration;
+    }
+
+    private static long remaining(RateLimitResult result) {
+        return result.allowed() ? result.remaining() : -1L;
+    }
+
+    private record Registration(String redisKey, RateType rateType, RateLimitRule rule) {
+
+        boolean matches(RateType rateType, long rate, Duration interval) {
+            return this.rateType == rateType && rule.limit() == rate && rule.window().equals(interval);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.mg.redis.limiter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * packageName com.mg.redis.limiter
+ * 基于 redis 的分布式限流
+ *
+ * @author mj
+ * @className RedisRateLimiter
+ * @date 2026/10/19
+ * @description 支持滑动窗口计数、GCRA、令牌桶三种算法，脚本启动时预加载，调用只走 EVALSHA，每次判定一次往返。
+ * 开启本地预检时，被 redis 拒绝的 key 在返回的等待时间内直接本地拒绝，不再访问 redis；
+ * 等待时间按无新请求计算，其它节点的请求只会让真实等待更久，因此本地拒绝不会误拒；
+ * 只记录单个许可被拒绝的等待时间，多许可的等待时间对单许可请求偏长
+ */
+@Log4j2
+public class RedisRateLimiter {
+    /**
+     * 本地预检最多记录的 key 数
+     */
+    private static final int LOCAL_MAX_KEYS = 10000;
+
+    private final RedissonClient client;
+    /**
+     * 限流 key -> 本地拒绝截止时间（毫秒），未开启预检时为 null
+     */
+    private final Cache<String, Long> blockedUntil;
+
+    public RedisRateLimiter(RedissonClient client, boolean localPreCheck) {
+        this.client = client;
+        this.blockedUntil = localPreCheck
+                ? Caffeine.newBuilder().maximumSize(LOCAL_MAX_KEYS).expireAfterWrite(Duration.ofMinutes(10)).build()
+                : null;
+        for (RateLimitAlgorithm algorithm : RateLimitAlgorithm.values()) {
+            try {
+                algorithm.script().load(client);
+            } catch (Exception e) {
+                // redis 暂不可用时首次调用再加载
+                log.warn("限流脚本 {} 预加载失败: {}", algorithm, e.getMessage());
+            }
+        }
+    }
+
+    public RateLimitResult tryAcquire(String key, RateLimitRule rule) {
+        return tryAcquire(key, rule, 1);
+    }
+
+    /**
+     * 申请许可
+     *
+     * @param key     限流 key
+     * @param rule    限流规则
+     * @param permits 本次申请的许可数，不能超过规则的突发容量
+     */
+    public RateLimitResult tryAcquire(String key, RateLimitRule rule, long permits) {
+        RateLimitResult local = precheck(key, rule, permits);
+        if (local != null) {
+            return local;
+        }
+        // 判定与剩余许可数在同一次 EVALSHA 中返回
+        List<Long> reply = rule.algorithm().script().eval(client, RScript.ReturnType.MULTI, List.of(key),
+                rule.window().toNanos() / 1000, rule.limit(), rule.burst(), permits);
+        return toResult(key, permits, reply);
+    }
+
+    /**
+     * 异步申请许可，不阻塞调用线程；本地预检拒绝时直接返回已完成的结果
+     */
+    public CompletableFuture<RateLimitResult> tryAcquireAsync(String key, RateLimitRule rule, long permits) {
+        RateLimitResult local = precheck(key, rule, permits);
+        if (local != null) {
+            return CompletableFuture.completedFuture(local);
+        }
+        return rule.algorithm().script()
+                .<List<Long>>evalAsync(client, RScript.ReturnType.MULTI, List.of(key),
+                        rule.window().toNanos() / 1000, rule.limit(), rule.burst(), permits)
+                .thenApply(reply -> toResult(key, permits, reply));
+    }
+
+    /**
+     * 校验许可数并做本地预检
+     *
+     * @return 本地直接拒绝时返回结果，否则返回 null
+     */
+    private RateLimitResult precheck(String key, RateLimitRule rule, long permits) {
+        if (permits <= 0 || permits > rule.capacity()) {
+            throw new IllegalArgumentException("许可数必须在 1 到 " + rule.capacity() + " 之间");
+        }
+        if (blockedUntil != null) {
+            Long until = blockedUntil.getIfPresent(key);
+            if (until != null) {
+                long wait = until - System.currentTimeMillis();
+                if (wait > 0) {
+                    return RateLimitResult.rejected(0, wait, true);
+                }
+                blockedUntil.invalidate(key);
+            }
+        }
+        return null;
+    }
+
+    private RateLimitResult toResult(String key, long permits, List<Long> reply) {
+        long retryAfter = reply.get(0);
+        long remaining = reply.get(1);
+        if (retryAfter <= 0) {
+            return RateLimitResult.allowed(remaining);
+        }
+        if (blockedUntil != null && permits == 1) {
+            blockedUntil.put(key, System.currentTimeMillis() + retryAfter);
+        }
+        return RateLimitResult.rejected(remaining, retryAfter, false);
+    }
+}
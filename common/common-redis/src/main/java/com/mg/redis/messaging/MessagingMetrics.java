@@ -0,0 +1,60 @@
+package com.mg.redis.messaging;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * packageName com.mg.redis.messaging
+ * 单个通道的消息统计
+ *
+ * @author mj
+ * @className MessagingMetrics
+ * @date 2026/10/19
+ * @description 计数器均为 LongAdder，高频发布/接收时不产生竞争
+ */
+public class MessagingMetrics {
+    private final LongAdder published = new LongAdder();
+    private final LongAdder publishFailed = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    void published(long count) {
+        published.add(count);
+    }
+
+    void publishFailed(long count) {
+        publishFailed.add(count);
+    }
+
+    void received() {
+        received.increment();
+    }
+
+    void dispatched() {
+        dispatched.increment();
+    }
+
+    /**
+     * 本地分发队列已满被丢弃
+     */
+    void dropped() {
+        dropped.increment();
+    }
+
+    /**
+     * 订阅者处理抛出异常
+     */
+    void failed() {
+        failed.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(published.sum(), publishFailed.sum(), received.sum(), dispatched.sum(),
+                dropped.sum(), failed.sum());
+    }
+
+    public record Snapshot(long published, long publishFailed, long received, long dispatched, long dropped,
+                           long failed) {
+    }
+}
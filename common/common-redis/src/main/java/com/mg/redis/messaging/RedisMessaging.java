@@ -0,0 +1,278 @@
+package com.mg.redis.messaging;
+
+import lombok.extern.log4j.Log4j2;
+import org.redisson.api.RBatch;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * packageName com.mg.redis.messaging
+ * redis 发布订阅
+ *
+ * @author mj
+ * @className RedisMessaging
+ * @date 2026/10/19
+ * @description 每个通道在本节点只向 redis 注册一个监听，收到的消息进入该通道的有界队列，
+ * 由固定大小的线程池按通道串行分发给本地订阅者：同一通道消息有序，慢订阅者只会让本通道队列满而丢弃，不会拖住 redisson 的事件线程。
+ * 集群模式可开启分片发布订阅（SPUBLISH/SSUBSCRIBE，需 redis 7），消息只在通道所在分片内传播，不再广播到全部节点。
+ * 批量发布在普通模式下走一次管道，分片模式下并发异步发送
+ */
+@Log4j2
+public class RedisMessaging {
+    /**
+     * 每次分发任务最多处理的消息数，超过后重新提交，避免单个通道长期占用线程
+     */
+    private static final int DISPATCH_LIMIT = 256;
+
+    private final RedissonClient client;
+    private final boolean sharded;
+    private final int queueCapacity;
+    private final ExecutorService dispatcher;
+    private final AtomicInteger listenerIds = new AtomicInteger();
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final Map<String, MessagingMetrics> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * @param sharded       是否使用分片发布订阅
+     * @param threads       分发线程数
+     * @param queueCapacity 单个通道待分发消息上限
+     */
+    public RedisMessaging(RedissonClient client, boolean sharded, int threads, int queueCapacity) {
+        this.client = client;
+        this.sharded = sharded;
+        this.queueCapacity = queueCapacity;
+        this.dispatcher = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger idx = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "redis-msg-" + idx.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    private RTopic topic(String channel) {
+        return sharded ? client.getShardedTopic(channel) : client.getTopic(channel);
+    }
+
+    /**
+     * 发布消息
+     *
+     * @return 收到消息的订阅连接数
+     */
+    public long publish(String channel, Object msg) {
+        MessagingMetrics m = metrics(channel);
+        try {
+            long receivers = topic(channel).publish(msg);
+            m.published(1);
+            return receivers;
+        } catch (RuntimeException e) {
+            m.publishFailed(1);
+            throw e;
+        }
+    }
+
+    /**
+     * 异步发布，不阻塞调用线程
+     */
+    public CompletableFuture<Long> publishAsync(String channel, Object msg) {
+        MessagingMetrics m = metrics(channel);
+        return topic(channel).publishAsync(msg).toCompletableFuture().whenComplete((receivers, e) -> {
+            if (e == null) {
+                m.published(1);
+            } else {
+                m.publishFailed(1);
+            }
+        });
+    }
+
+    /**
+     * 批量发布到同一通道，一次往返发送全部消息
+     */
+    public void publishAll(String channel, Collection<?> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        MessagingMetrics m = metrics(channel);
+        try {
+            if (sharded) {
+                // 分片通道不支持 batch，异步并发发送后统一等待
+                RTopic topic = topic(channel);
+                List<CompletableFuture<Long>> futures = new ArrayList<>(messages.size());
+                for (Object msg : messages) {
+                    futures.add(topic.publishAsync(msg).toCompletableFuture());
+                }
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            } else {
+                RBatch batch = client.createBatch();
+                for (Object msg : messages) {
+                    batch.getTopic(channel).publishAsync(msg);
+                }
+                batch.execute();
+            }
+            m.published(messages.size());
+        } catch (RuntimeException e) {
+            m.publishFailed(messages.size());
+            throw e;
+        }
+    }
+
+    /**
+     * 订阅通道
+     *
+     * @param clazz    消息类型，类型不符的消息跳过
+     * @param consumer 在分发线程中调用，同一通道按顺序调用
+     * @return 监听器 ID，用于取消订阅
+     */
+    public <T> int subscribe(String channel, Class<T> clazz, Consumer<T> consumer) {
+        int id = listenerIds.incrementAndGet();
+        Listener<T> listener = new Listener<>(id, clazz, consumer);
+        // compute 内只异步发起注册，等待 redis 确认放在外面，不在 map 锁内阻塞
+        Channel state = channels.compute(channel, (name, existing) -> {
+            Channel created = existing == null ? new Channel(name) : existing;
+            created.listeners.add(listener);
+            return created;
+        });
+        try {
+            state.registered.join();
+        } catch (RuntimeException e) {
+            unsubscribe(channel, id);
+            throw e;
+        }
+        return id;
+    }
+
+    /**
+     * 取消订阅，通道上没有本地订阅者时注销 redis 监听
+     */
+    public void unsubscribe(String channel, int listenerId) {
+        channels.computeIfPresent(channel, (name, state) -> {
+            state.listeners.removeIf(listener -> listener.id == listenerId);
+            if (!state.listeners.isEmpty()) {
+                return state;
+            }
+            state.close();
+            metrics.remove(name, state.metrics);
+            return null;
+        });
+    }
+
+    /**
+     * 按通道的发布/接收/分发/丢弃统计
+     */
+    public Map<String, MessagingMetrics.Snapshot> snapshot() {
+        Map<String, MessagingMetrics.Snapshot> result = new TreeMap<>();
+        metrics.forEach((channel, m) -> result.put(channel, m.snapshot()));
+        return result;
+    }
+
+    public void shutdown() {
+        channels.values().forEach(Channel::close);
+        channels.clear();
+        dispatcher.shutdownNow();
+    }
+
+    private MessagingMetrics metrics(String channel) {
+        return metrics.computeIfAbsent(channel, c -> new MessagingMetrics());
+    }
+
+    private record Listener<T>(int id, Class<T> clazz, Consumer<T> consumer) {
+
+        void accept(Object msg) {
+            if (clazz.isInstance(msg)) {
+                consumer.accept(clazz.cast(msg));
+            }
+        }
+    }
+
+    /**
+     * 本节点的一个通道：一个 redis 监听 + 本地订阅者 + 待分发队列
+     */
+    private final class Channel {
+        private final String name;
+        private final RTopic topic;
+        /**
+         * redis 监听注册结果（监听器 ID）
+         */
+        private final CompletableFuture<Integer> registered;
+        private final MessagingMetrics metrics;
+        private final List<Listener<?>> listeners = new CopyOnWriteArrayList<>();
+        private final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Channel(String name) {
+            this.name = name;
+            this.topic = topic(name);
+            this.metrics = metrics(name);
+            this.registered = topic.addListenerAsync(Object.class, (ch, msg) -> offer(msg)).toCompletableFuture();
+        }
+
+        private void offer(Object msg) {
+            metrics.received();
+            if (pending.incrementAndGet() > queueCapacity) {
+                pending.decrementAndGet();
+                metrics.dropped();
+                return;
+            }
+            queue.offer(msg);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int handled = 0;
+            Object msg;
+            while (handled < DISPATCH_LIMIT && (msg = queue.poll()) != null) {
+                pending.decrementAndGet();
+                handled++;
+                for (Listener<?> listener : listeners) {
+                    try {
+                        listener.accept(msg);
+                    } catch (Exception e) {
+                        metrics.failed();
+                        log.error("通道 {} 消息处理异常", name, e);
+                    }
+                }
+                metrics.dispatched();
+            }
+            scheduled.set(false);
+            // 释放后再检查一次，避免释放前入队的消息无人处理
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void close() {
+            registered.thenCompose(redisListenerId -> topic.removeListenerAsync(redisListenerId))
+                    .whenComplete((v, e) -> {
+                        if (e != null) {
+                            log.warn("通道 {} 取消订阅失败: {}", name, e.getMessage());
+                        }
+                    });
+        }
+    }
+}
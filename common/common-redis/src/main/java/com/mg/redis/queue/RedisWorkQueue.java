@@ -0,0 +1,389 @@
+package com.mg.redis.queue;
+
+import lombok.extern.log4j.Log4j2;
+import org.redisson.api.PendingEntry;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RStream;
+import org.redisson.api.RStreamAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamConsumer;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.api.stream.StreamCreateGroupArgs;
+import org.redisson.api.stream.StreamReadGroupArgs;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.Codec;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * packageName com.mg.redis.queue
+ * 基于 redis stream 的持久化工作队列
+ *
+ * @author mj
+ * @className RedisWorkQueue
+ * @date 2026/10/19
+ * @description 生产者 XADD 入队，消费者组内多个消费者 XREADGROUP 批量拉取，处理成功后 XACK；
+ * 处理失败或消费者宕机的任务留在待确认列表（PEL），空闲超过 reclaimIdle 后由存活的消费者 XCLAIM 接管重投，
+ * 投递次数达到 maxDeliveries 的任务转入死信流 {name}:dead。语义为至少一次，处理逻辑需要幂等。
+ * 每个消费者的并发由信号量控制：只拉取空闲槽位数量的任务，不会在本地积压
+ * <pre>
+ * RedisWorkQueue&lt;RelayCommand&gt; queue = RedisUtil.workQueue("relay:commands", RelayCommand.class);
+ * queue.enqueue(command);
+ * RedisWorkQueue.Worker worker = queue.consume("relay", command -&gt; relay(command));
+ * worker.stop();
+ * </pre>
+ */
+@Log4j2
+public class RedisWorkQueue<T> {
+    private static final String FIELD = "job";
+    private static final String DEAD_LETTER_SUFFIX = ":dead";
+    /**
+     * 长期空闲且没有待确认任务的消费者，超过 reclaimIdle 的该倍数后从组内移除，避免重启后消费者名单无限增长
+     */
+    private static final int CONSUMER_EXPIRE_FACTOR = 10;
+    private static final AtomicInteger CONSUMER_IDS = new AtomicInteger();
+
+    private final RedissonClient client;
+    private final String name;
+    private final Class<T> type;
+    private final Codec codec;
+    private final WorkQueueOptions options;
+    private final RStream<String, Object> stream;
+    private final RStream<String, Object> deadLetters;
+    private final WorkQueueMetrics metrics = new WorkQueueMetrics();
+
+    public RedisWorkQueue(RedissonClient client, String name, Class<T> type, Codec codec, WorkQueueOptions options) {
+        this.client = client;
+        this.name = name;
+        this.type = type;
+        this.codec = codec;
+        this.options = options;
+        this.stream = client.getStream(name, codec);
+        this.deadLetters = client.getStream(name + DEAD_LETTER_SUFFIX, codec);
+    }
+
+    /**
+     * 入队
+     *
+     * @return 条目 ID
+     */
+    public StreamMessageId enqueue(T job) {
+        StreamMessageId id = stream.add(addArgs(Map.<String, Object>of(FIELD, job)));
+        metrics.enqueued(1);
+        return id;
+    }
+
+    /**
+     * 批量入队，一次往返
+     *
+     * @return 条目 ID，与 jobs 顺序一致
+     */
+    public List<StreamMessageId> enqueueAll(Collection<? extends T> jobs) {
+        if (jobs.isEmpty()) {
+            return List.of();
+        }
+        RBatch batch = client.createBatch();
+        RStreamAsync<String, Object> async = batch.getStream(name, codec);
+        List<RFuture<StreamMessageId>> futures = new ArrayList<>(jobs.size());
+        for (T job : jobs) {
+            futures.add(async.addAsync(addArgs(Map.<String, Object>of(FIELD, job))));
+        }
+        batch.execute();
+        List<StreamMessageId> ids = new ArrayList<>(futures.size());
+        for (RFuture<StreamMessageId> future : futures) {
+            ids.add(future.toCompletableFuture().join());
+        }
+        metrics.enqueued(jobs.size());
+        return ids;
+    }
+
+    /**
+     * 以新的消费者加入消费组开始消费，消费组不存在时创建（从流的起点消费）
+     *
+     * @param group   消费组
+     * @param handler 在工作线程中调用，抛出异常视为失败，任务等待回收重投
+     */
+    public Worker consume(String group, Consumer<T> handler) {
+        ensureGroup(group);
+        String consumer = ManagementFactory.getRuntimeMXBean().getName() + "-" + CONSUMER_IDS.incrementAndGet();
+        Worker worker = new Worker(group, consumer, handler);
+        worker.start();
+        log.info("工作队列 {} 消费者 {} 加入消费组 {}，concurrency={}", name, consumer, group, options.concurrency());
+        return worker;
+    }
+
+    /**
+     * 消费组已投递未确认的任务数
+     */
+    public long pending(String group) {
+        return stream.getPendingInfo(group).getTotal();
+    }
+
+    /**
+     * 未消费完的条目数（含已确认但未被裁剪的条目）
+     */
+    public long size() {
+        return stream.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDeadLetterName() {
+        return deadLetters.getName();
+    }
+
+    public WorkQueueMetrics.Snapshot metrics() {
+        return metrics.snapshot();
+    }
+
+    private void ensureGroup(String group) {
+        try {
+            stream.createGroup(StreamCreateGroupArgs.name(group).id(StreamMessageId.ALL).makeStream());
+        } catch (RedisException e) {
+            // 消费组已存在
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private StreamAddArgs<String, Object> addArgs(Map<String, Object> entries) {
+        StreamAddArgs<String, Object> args = StreamAddArgs.entries(entries);
+        return options.maxLen() > 0 ? args.trimNonStrict().maxLen(options.maxLen()).noLimit() : args;
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger idx = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, prefix + idx.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+
+    /**
+     * 消费组中的一个消费者：一个拉取线程 + concurrency 个工作线程 + 一个回收线程
+     */
+    public final class Worker {
+        private final String group;
+        private final String consumer;
+        private final Consumer<T> handler;
+        /**
+         * 空闲处理槽位，拉取与回收都先占槽位再取任务
+         */
+        private final Semaphore slots;
+        private final ExecutorService workers;
+        private final ScheduledExecutorService reclaimer;
+        private final Thread poller;
+        private volatile boolean running = true;
+
+        private Worker(String group, String consumer, Consumer<T> handler) {
+            this.group = group;
+            this.consumer = consumer;
+            this.handler = handler;
+            this.slots = new Semaphore(options.concurrency());
+            this.workers = Executors.newFixedThreadPool(options.concurrency(),
+                    threadFactory("redis-queue-" + name + "-"));
+            this.reclaimer = Executors.newSingleThreadScheduledExecutor(threadFactory("redis-queue-reclaim-"));
+            this.poller = threadFactory("redis-queue-poll-").newThread(this::poll);
+        }
+
+        private void start() {
+            poller.start();
+            long interval = options.reclaimInterval().toMillis();
+            reclaimer.scheduleWithFixedDelay(this::reclaim, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        public String getConsumer() {
+            return consumer;
+        }
+
+        /**
+         * 停止拉取，等待处理中的任务最多 blockTimeout；未完成的任务留在待确认列表，由其它消费者回收
+         */
+        public void stop() {
+            running = false;
+            reclaimer.shutdownNow();
+            poller.interrupt();
+            workers.shutdown();
+            try {
+                if (!workers.awaitTermination(options.blockTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                    workers.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            log.info("工作队列 {} 消费者 {} 已停止", name, consumer);
+        }
+
+        private void poll() {
+            while (running) {
+                int acquired = 0;
+                try {
+                    slots.acquire();
+                    acquired = 1;
+                    while (acquired < options.batchSize() && slots.tryAcquire()) {
+                        acquired++;
+                    }
+                    Map<StreamMessageId, Map<String, Object>> entries = stream.readGroup(group, consumer,
+                            StreamReadGroupArgs.neverDelivered().count(acquired).timeout(options.blockTimeout()));
+                    int size = entries == null ? 0 : entries.size();
+                    // 多占的槽位先归还，其余由任务完成时归还
+                    slots.release(acquired - size);
+                    acquired = 0;
+                    if (size > 0) {
+                        metrics.delivered(size);
+                        entries.forEach(this::submit);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    slots.release(acquired);
+                    if (!running) {
+                        return;
+                    }
+                    log.warn("工作队列 {} 拉取失败: {}", name, e.getMessage());
+                    try {
+                        TimeUnit.SECONDS.sleep(1);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 调用方已占用一个槽位
+         */
+        private void submit(StreamMessageId id, Map<String, Object> fields) {
+            try {
+                workers.execute(() -> {
+                    try {
+                        handle(id, fields);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 已停止，任务留在待确认列表
+                slots.release();
+            }
+        }
+
+        private void handle(StreamMessageId id, Map<String, Object> fields) {
+            Object job = fields == null ? null : fields.get(FIELD);
+            if (!type.isInstance(job)) {
+                log.warn("工作队列 {} 条目 {} 不是 {}，转入死信", name, id, type.getSimpleName());
+                deadLetter(id, fields);
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                handler.accept(type.cast(job));
+                stream.ack(group, id);
+                metrics.acked(System.nanoTime() - start);
+            } catch (Exception e) {
+                metrics.failed(System.nanoTime() - start);
+                log.error("工作队列 {} 任务 {} 处理失败，等待回收重投", name, id, e);
+            }
+        }
+
+        /**
+         * 回收空闲超时的待确认任务：投递次数未达上限的重投，达到上限的转入死信
+         */
+        private void reclaim() {
+            if (!running) {
+                return;
+            }
+            int acquired = 0;
+            try {
+                long idle = options.reclaimIdle().toMillis();
+                List<PendingEntry> pending = stream.listPending(group, StreamMessageId.MIN, StreamMessageId.MAX,
+                        idle, TimeUnit.MILLISECONDS, options.batchSize());
+                List<PendingEntry> retries = new ArrayList<>();
+                List<StreamMessageId> dead = new ArrayList<>();
+                for (PendingEntry entry : pending) {
+                    if (entry.getLastTimeDelivered() >= options.maxDeliveries()) {
+                        dead.add(entry.getId());
+                    } else if (slots.tryAcquire()) {
+                        acquired++;
+                        retries.add(entry);
+                    }
+                }
+                if (!dead.isEmpty()) {
+                    // 先 XCLAIM 确保只有一个消费者转移该条目；已被裁剪的条目不会返回
+                    claim(dead).forEach(this::deadLetter);
+                }
+                if (!retries.isEmpty()) {
+                    Map<StreamMessageId, Map<String, Object>> claimed =
+                            claim(retries.stream().map(PendingEntry::getId).toList());
+                    for (PendingEntry entry : retries) {
+                        Map<String, Object> fields = claimed.get(entry.getId());
+                        if (fields == null) {
+                            // 已被其它消费者接管或已被裁剪
+                            continue;
+                        }
+                        acquired--;
+                        metrics.reclaimed(entry.getIdleTime());
+                        metrics.delivered(1);
+                        submit(entry.getId(), fields);
+                    }
+                }
+                expireConsumers();
+            } catch (Exception e) {
+                log.warn("工作队列 {} 回收待确认任务失败: {}", name, e.getMessage());
+            } finally {
+                slots.release(acquired);
+            }
+        }
+
+        private Map<StreamMessageId, Map<String, Object>> claim(List<StreamMessageId> ids) {
+            return stream.claim(group, consumer, options.reclaimIdle().toMillis(), TimeUnit.MILLISECONDS,
+                    ids.toArray(new StreamMessageId[0]));
+        }
+
+        private void deadLetter(StreamMessageId id, Map<String, Object> fields) {
+            Map<String, Object> entry = new HashMap<>(fields == null ? Map.of() : fields);
+            entry.put("sourceId", id.toString());
+            entry.put("group", group);
+            deadLetters.add(addArgs(entry));
+            stream.ack(group, id);
+            metrics.deadLettered();
+        }
+
+        private void expireConsumers() {
+            long expireMillis = options.reclaimIdle().toMillis() * CONSUMER_EXPIRE_FACTOR;
+            for (StreamConsumer other : stream.listConsumers(group)) {
+                // 仍有待确认任务的消费者不能移除，否则其 PEL 一并丢失
+                if (other.getPending() == 0 && other.getIdleTime() > expireMillis && !consumer.equals(other.getName())) {
+                    stream.removeConsumer(group, other.getName());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.mg.redis.queue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * packageName com.mg.redis.queue
+ * 单个工作队列的统计
+ *
+ * @author mj
+ * @className WorkQueueMetrics
+ * @date 2026/10/19
+ * @description 计数器均为 LongAdder；重投延迟为条目上次投递到被回收重投之间的空闲时长
+ */
+public class WorkQueueMetrics {
+    private final long startedAt = System.nanoTime();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder reclaimed = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+    private final LongAdder redeliveryMillis = new LongAdder();
+    private final LongAccumulator maxRedeliveryMillis = new LongAccumulator(Math::max, 0);
+
+    void enqueued(long count) {
+        enqueued.add(count);
+    }
+
+    void delivered(long count) {
+        delivered.add(count);
+    }
+
+    void acked(long nanos) {
+        acked.increment();
+        processingNanos.add(nanos);
+    }
+
+    /**
+     * 处理抛出异常，任务留在待确认列表等待回收重投
+     */
+    void failed(long nanos) {
+        failed.increment();
+        processingNanos.add(nanos);
+    }
+
+    void reclaimed(long idleMillis) {
+        reclaimed.increment();
+        redeliveryMillis.add(idleMillis);
+        maxRedeliveryMillis.accumulate(idleMillis);
+    }
+
+    void deadLettered() {
+        deadLettered.increment();
+    }
+
+    public Snapshot snapshot() {
+        long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        long done = acked.sum();
+        long processed = done + failed.sum();
+        long redelivered = reclaimed.sum();
+        return new Snapshot(enqueued.sum(), delivered.sum(), done, failed.sum(), redelivered, deadLettered.sum(),
+                done * 1000.0 / elapsed,
+                processed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(processingNanos.sum()) / (double) processed,
+                redelivered == 0 ? 0 : redeliveryMillis.sum() / (double) redelivered,
+                maxRedeliveryMillis.get());
+    }
+
+    /**
+     * @param ackedPerSecond      启动以来平均每秒确认数
+     * @param avgProcessingMillis 平均处理耗时
+     * @param avgRedeliveryMillis 平均重投延迟
+     * @param maxRedeliveryMillis 最大重投延迟
+     */
+    public record Snapshot(long enqueued, long delivered, long acked, long failed, long reclaimed, long deadLettered,
+                           double ackedPerSecond, double avgProcessingMillis, double avgRedeliveryMillis,
+                           long maxRedeliveryMillis) {
+    }
+}
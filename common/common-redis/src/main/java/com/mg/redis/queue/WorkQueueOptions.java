@@ -0,0 +1,65 @@
+package com.mg.redis.queue;
+
+import java.time.Duration;
+
+/**
+ * packageName com.mg.redis.queue
+ * 工作队列消费参数
+ *
+ * @author mj
+ * @className WorkQueueOptions
+ * @date 2026/10/19
+ * @description 不可变，通过 withXxx 派生新配置
+ *
+ * @param concurrency     单个消费者同时处理的任务数
+ * @param batchSize       一次 XREADGROUP / 回收读取的最大条数
+ * @param blockTimeout    XREADGROUP 阻塞等待时长，也是停止消费时的最长等待
+ * @param reclaimIdle     待确认条目空闲超过该时长视为消费者已失效，由其它消费者接管
+ * @param reclaimInterval 回收扫描间隔
+ * @param maxDeliveries   投递次数达到上限仍未确认的任务转入死信流
+ * @param maxLen          流的近似最大长度，小于等于 0 不裁剪；裁剪会丢弃最早的条目，应远大于积压量
+ */
+public record WorkQueueOptions(int concurrency, int batchSize, Duration blockTimeout, Duration reclaimIdle,
+                               Duration reclaimInterval, int maxDeliveries, int maxLen) {
+
+    public WorkQueueOptions {
+        if (concurrency <= 0 || batchSize <= 0 || maxDeliveries <= 0) {
+            throw new IllegalArgumentException("concurrency、batchSize、maxDeliveries 必须大于 0");
+        }
+    }
+
+    public static WorkQueueOptions defaults() {
+        return new WorkQueueOptions(4, 16, Duration.ofSeconds(2), Duration.ofMinutes(1),
+                Duration.ofSeconds(30), 5, 100_000);
+    }
+
+    public WorkQueueOptions withConcurrency(int concurrency) {
+        return new WorkQueueOptions(concurrency, batchSize, blockTimeout, reclaimIdle, reclaimInterval,
+                maxDeliveries, maxLen);
+    }
+
+    public WorkQueueOptions withBatchSize(int batchSize) {
+        return new WorkQueueOptions(concurrency, batchSize, blockTimeout, reclaimIdle, reclaimInterval,
+                maxDeliveries, maxLen);
+    }
+
+    public WorkQueueOptions withBlockTimeout(Duration blockTimeout) {
+        return new WorkQueueOptions(concurrency, batchSize, blockTimeout, reclaimIdle, reclaimInterval,
+                maxDeliveries, maxLen);
+    }
+
+    public WorkQueueOptions withReclaim(Duration reclaimIdle, Duration reclaimInterval) {
+        return new WorkQueueOptions(concurrency, batchSize, blockTimeout, reclaimIdle, reclaimInterval,
+                maxDeliveries, maxLen);
+    }
+
+    public WorkQueueOptions withMaxDeliveries(int maxDeliveries) {
+        return new WorkQueueOptions(concurrency, batchSize, blockTimeout, reclaimIdle, reclaimInterval,
+                maxDeliveries, maxLen);
+    }
+
+    public WorkQueueOptions withMaxLen(int maxLen) {
+        return new WorkQueueOptions(concurrency, batchSize, blockTimeout, reclaimIdle, reclaimInterval,
+                maxDeliveries, maxLen);
+    }
+}
@@ -0,0 +1,272 @@
+package com.mg.redis.utils;
+
+import com.mg.redis.limiter.RateLimitResult;
+import com.mg.redis.limiter.RateLimitRule;
+import org.redisson.api.RAtomicLongReactive;
+import org.redisson.api.RBucketReactive;
+import org.redisson.api.RLockReactive;
+import org.redisson.api.RMapReactive;
+import org.redisson.api.RateType;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * packageName com.mg.redis.utils
+ * RedisUtil 的响应式版本
+ *
+ * @author mj
+ * @className ReactiveRedisUtil
+ * @date 2026/10/19
+ * @description 与 RedisUtil 共用客户端、编码、限流与发布订阅配置，全部方法返回 Mono、不阻塞调用线程，
+ * 可在 netty 事件循环中直接使用；返回的 Mono 订阅后才发送命令。
+ * 写入与删除同样失效近端缓存（通知其它节点为异步发布）；读取直接访问 redis，不经过近端缓存。
+ * 响应式锁没有线程归属，加锁与解锁需要传入同一个 lockId（见 newLockId）
+ */
+public final class ReactiveRedisUtil {
+
+    private ReactiveRedisUtil() {
+    }
+
+    private static <T> RBucketReactive<T> bucket(String key) {
+        return RedisUtil.reactiveClient().getBucket(key, RedisUtil.codec(key));
+    }
+
+    private static <K, V> RMapReactive<K, V> map(String key) {
+        return RedisUtil.reactiveClient().getMap(key, RedisUtil.codec(key));
+    }
+
+    private static RAtomicLongReactive atomic(String key) {
+        return RedisUtil.reactiveClient().getAtomicLong(key);
+    }
+
+    private static RLockReactive lock(String lockKey) {
+        return RedisUtil.reactiveClient().getLock(lockKey);
+    }
+
+    /**
+     * 缓存基本的对象
+     *
+     * @param key   缓存的键值
+     * @param value 缓存的值
+     */
+    public static <T> Mono<Void> setCacheObject(final String key, final T value) {
+        RBucketReactive<T> bucket = bucket(key);
+        return bucket.set(value).doOnSuccess(v -> RedisUtil.invalidate(key));
+    }
+
+    /**
+     * 缓存基本的对象并设置有效期
+     *
+     * @param key      缓存的键值
+     * @param value    缓存的值
+     * @param duration 时间
+     */
+    public static <T> Mono<Void> setCacheObject(final String key, final T value, final Duration duration) {
+        RBucketReactive<T> bucket = bucket(key);
+        return bucket.set(value, duration).doOnSuccess(v -> RedisUtil.invalidate(key));
+    }
+
+    /**
+     * 不存在时设置（SET NX）
+     *
+     * @return 是否设置成功
+     */
+    public static <T> Mono<Boolean> setObjectIfAbsent(final String key, final T value, final Duration duration) {
+        RBucketReactive<T> bucket = bucket(key);
+        return bucket.setIfAbsent(value, duration).doOnSuccess(set -> {
+            if (Boolean.TRUE.equals(set)) {
+                RedisUtil.invalidate(key);
+            }
+        });
+    }
+
+    /**
+     * 获得缓存的基本对象，key 不存在时为空
+     *
+     * @param key 缓存键值
+     */
+    public static <T> Mono<T> getCacheObject(final String key) {
+        RBucketReactive<T> bucket = bucket(key);
+        return bucket.get();
+    }
+
+    /**
+     * 剩余存活时间（毫秒），-1 永不过期，-2 不存在
+     */
+    public static Mono<Long> getTimeToLive(final String key) {
+        return bucket(key).remainTimeToLive();
+    }
+
+    public static Mono<Boolean> expire(final String key, final Duration duration) {
+        return bucket(key).expire(duration);
+    }
+
+    public static Mono<Boolean> isExistsObject(final String key) {
+        return bucket(key).isExists();
+    }
+
+    public static Mono<Boolean> deleteObject(final String key) {
+        return bucket(key).delete().doOnSuccess(v -> RedisUtil.invalidate(key));
+    }
+
+    /**
+     * 值等于 expected 时删除（原子比较删除）
+     *
+     * @return 是否删除
+     */
+    public static <T> Mono<Boolean> deleteObjectIfEquals(final String key, final T expected) {
+        RBucketReactive<T> bucket = bucket(key);
+        return bucket.compareAndSet(expected, null).doOnSuccess(deleted -> {
+            if (Boolean.TRUE.equals(deleted)) {
+                RedisUtil.invalidate(key);
+            }
+        });
+    }
+
+    /**
+     * 批量删除，一条 DEL 命令
+     *
+     * @return 删除的 key 数
+     */
+    public static Mono<Long> deleteObject(final Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return RedisUtil.reactiveClient().getKeys().delete(keys.toArray(new String[0]))
+                .doOnSuccess(v -> keys.forEach(RedisUtil::invalidate));
+    }
+
+    /**
+     * 缓存 Map
+     *
+     * @param key     缓存的键值
+     * @param dataMap 缓存的数据
+     */
+    public static <T> Mono<Void> setCacheMap(final String key, final Map<String, T> dataMap) {
+        if (dataMap == null || dataMap.isEmpty()) {
+            return Mono.empty();
+        }
+        RMapReactive<String, T> rMap = map(key);
+        return rMap.putAll(dataMap).doOnSuccess(v -> RedisUtil.invalidate(key));
+    }
+
+    public static <T> Mono<Map<String, T>> getCacheMap(final String key) {
+        RMapReactive<String, T> rMap = map(key);
+        return rMap.readAllMap();
+    }
+
+    /**
+     * 写入 hash 字段（HSET）
+     *
+     * @return 字段此前是否不存在
+     */
+    public static <T> Mono<Boolean> setCacheMapValue(final String key, final String hKey, final T value) {
+        RMapReactive<String, T> rMap = map(key);
+        return rMap.fastPut(hKey, value).doOnSuccess(v -> RedisUtil.invalidate(key));
+    }
+
+    public static <T> Mono<T> getCacheMapValue(final String key, final String hKey) {
+        RMapReactive<String, T> rMap = map(key);
+        return rMap.get(hKey);
+    }
+
+    /**
+     * 删除 hash 字段
+     *
+     * @return 实际删除的字段数
+     */
+    public static Mono<Long> delCacheMapValue(final String key, final String... hKeys) {
+        RMapReactive<String, Object> rMap = map(key);
+        return rMap.fastRemove(hKeys).doOnSuccess(v -> RedisUtil.invalidate(key));
+    }
+
+    public static Mono<Void> setAtomicValue(String key, long value) {
+        return atomic(key).set(value);
+    }
+
+    public static Mono<Long> getAtomicValue(String key) {
+        return atomic(key).get();
+    }
+
+    public static Mono<Long> incrAtomicValue(String key) {
+        return atomic(key).incrementAndGet();
+    }
+
+    public static Mono<Long> decrAtomicValue(String key) {
+        return atomic(key).decrementAndGet();
+    }
+
+    public static Mono<Long> addAtomicValue(String key, long delta) {
+        return atomic(key).addAndGet(delta);
+    }
+
+    /**
+     * 生成锁持有者 ID，同一次加锁与解锁使用同一个值
+     */
+    public static long newLockId() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * 尝试加锁
+     *
+     * @param lockKey   锁的键
+     * @param waitTime  等待锁的最大时间
+     * @param leaseTime 持锁时间，超过这个时间会自动释放
+     * @param timeUnit  时间单位
+     * @param lockId    锁持有者 ID
+     * @return 是否成功获取锁
+     */
+    public static Mono<Boolean> tryLock(String lockKey, long waitTime, long leaseTime, TimeUnit timeUnit, long lockId) {
+        return lock(lockKey).tryLock(waitTime, leaseTime, timeUnit, lockId);
+    }
+
+    /**
+     * 释放 lockId 持有的锁
+     */
+    public static Mono<Void> unlock(String lockKey, long lockId) {
+        return lock(lockKey).unlock(lockId);
+    }
+
+    public static Mono<Boolean> isLocked(String lockKey) {
+        return lock(lockKey).isLocked();
+    }
+
+    /**
+     * 强制解锁（其他持有者持有时也能解锁）
+     */
+    public static Mono<Boolean> forceUnlock(String lockKey) {
+        return lock(lockKey).forceUnlock();
+    }
+
+    /**
+     * 令牌桶限流，见 RedisUtil.rateLimiter
+     *
+     * @return 剩余许可数，-1 表示被限流
+     */
+    public static Mono<Long> rateLimiter(String key, RateType rateType, long rate, Duration intervalDuration) {
+        return Mono.fromCompletionStage(() ->
+                RedisUtil.limiters().tryAcquireAsync(key, rateType, rate, intervalDuration));
+    }
+
+    /**
+     * 按规则申请一个许可，见 RedisUtil.allow
+     */
+    public static Mono<RateLimitResult> allow(String key, RateLimitRule rule) {
+        return Mono.fromCompletionStage(() -> RedisUtil.limiter().tryAcquireAsync(key, rule, 1));
+    }
+
+    /**
+     * 发布通道消息
+     *
+     * @return 收到消息的订阅连接数
+     */
+    public static <T> Mono<Long> publish(String channelKey, T msg) {
+        return Mono.fromCompletionStage(() -> RedisUtil.messaging().publishAsync(channelKey, msg));
+    }
+}
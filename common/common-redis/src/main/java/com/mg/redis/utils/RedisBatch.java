@@ -0,0 +1,196 @@
+package com.mg.redis.utils;
+
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucketAsync;
+import org.redisson.api.RFuture;
+import org.redisson.api.RMapAsync;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * packageName com.mg.redis.utils
+ * redis 批量操作
+ *
+ * @author mj
+ * @className RedisBatch
+ * @date 2026/10/19
+ * @description 在 RBatch 上排队读写命令，execute 时一次管道发送，N 个命令只需一次网络往返；
+ * 排队时返回 Result 句柄，execute 之后取值。atomic 模式以 MULTI/EXEC 包裹，命令整体原子执行。
+ * 批次不可复用，execute 之后再排队命令会抛出 IllegalStateException
+ * <pre>
+ * RedisBatch batch = RedisUtil.batch();
+ * RedisBatch.Result&lt;String&gt; name = batch.get("user:name");
+ * batch.set("user:visit", 1, Duration.ofMinutes(5));
+ * batch.execute();
+ * name.get();
+ * </pre>
+ */
+public class RedisBatch {
+    private final RBatch batch;
+    /**
+     * 写过的 key，执行后失效近端缓存
+     */
+    private final Set<String> writtenKeys = new LinkedHashSet<>();
+    private final List<Result<?>> results = new ArrayList<>();
+    private boolean executed;
+
+    RedisBatch(RBatch batch) {
+        this.batch = batch;
+    }
+
+    /**
+     * 普通管道：命令按顺序发送，不保证原子性
+     */
+    public static BatchOptions pipelined() {
+        return BatchOptions.defaults();
+    }
+
+    /**
+     * 原子执行（MULTI/EXEC）
+     */
+    public static BatchOptions atomic() {
+        return BatchOptions.defaults().executionMode(BatchOptions.ExecutionMode.IN_MEMORY_ATOMIC);
+    }
+
+    public <T> Result<T> get(String key) {
+        RBucketAsync<T> bucket = bucket(ensureOpen(key));
+        return track(bucket.getAsync());
+    }
+
+    public <T> Result<Void> set(String key, T value) {
+        RBucketAsync<T> bucket = bucket(write(key));
+        return track(bucket.setAsync(value));
+    }
+
+    public <T> Result<Void> set(String key, T value, Duration duration) {
+        RBucketAsync<T> bucket = bucket(write(key));
+        return track(bucket.setAsync(value, duration));
+    }
+
+    /**
+     * 不存在时设置（SET NX），结果为是否设置成功
+     */
+    public <T> Result<Boolean> setIfAbsent(String key, T value, Duration duration) {
+        RBucketAsync<T> bucket = bucket(write(key));
+        return track(bucket.setIfAbsentAsync(value, duration));
+    }
+
+    public Result<Boolean> expire(String key, Duration duration) {
+        return track(bucket(ensureOpen(key)).expireAsync(duration));
+    }
+
+    public Result<Boolean> exists(String key) {
+        return track(bucket(ensureOpen(key)).isExistsAsync());
+    }
+
+    public Result<Boolean> delete(String key) {
+        return track(bucket(write(key)).deleteAsync());
+    }
+
+    public <T> Result<T> hget(String key, String hKey) {
+        RMapAsync<String, T> map = map(ensureOpen(key));
+        return track(map.getAsync(hKey));
+    }
+
+    public <T> Result<Map<String, T>> hgetAll(String key) {
+        RMapAsync<String, T> map = map(ensureOpen(key));
+        return track(map.readAllMapAsync());
+    }
+
+    /**
+     * 写入 hash 字段（HSET），结果为字段此前是否不存在
+     */
+    public <T> Result<Boolean> hset(String key, String hKey, T value) {
+        RMapAsync<String, T> map = map(write(key));
+        return track(map.fastPutAsync(hKey, value));
+    }
+
+    /**
+     * 删除 hash 字段（HDEL），结果为实际删除的字段数
+     */
+    public Result<Long> hdel(String key, String... hKeys) {
+        RMapAsync<String, Object> map = map(write(key));
+        return track(map.fastRemoveAsync(hKeys));
+    }
+
+    /**
+     * 排队的命令数
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * 一次发送全部命令并等待结果；原子模式下任一命令失败时整体抛出异常
+     */
+    public void execute() {
+        if (executed) {
+            throw new IllegalStateException("批次已执行");
+        }
+        executed = true;
+        if (results.isEmpty()) {
+            return;
+        }
+        try {
+            batch.execute();
+        } finally {
+            writtenKeys.forEach(RedisUtil::invalidate);
+        }
+    }
+
+    private String ensureOpen(String key) {
+        if (executed) {
+            throw new IllegalStateException("批次已执行，不能再添加命令");
+        }
+        return key;
+    }
+
+    private String write(String key) {
+        writtenKeys.add(ensureOpen(key));
+        return key;
+    }
+
+    private <T> RBucketAsync<T> bucket(String key) {
+        return batch.getBucket(key, RedisUtil.codec(key));
+    }
+
+    private <K, V> RMapAsync<K, V> map(String key) {
+        return batch.getMap(key, RedisUtil.codec(key));
+    }
+
+    private <T> Result<T> track(RFuture<T> future) {
+        Result<T> result = new Result<>(future.toCompletableFuture());
+        results.add(result);
+        return result;
+    }
+
+    /**
+     * 排队命令的结果句柄
+     */
+    public static final class Result<T> {
+        private final CompletableFuture<T> future;
+
+        private Result(CompletableFuture<T> future) {
+            this.future = future;
+        }
+
+        /**
+         * 批次执行后取值
+         *
+         * @throws IllegalStateException 批次尚未执行
+         */
+        public T get() {
+            if (!future.isDone()) {
+                throw new IllegalStateException("批次尚未执行");
+            }
+            return future.join();
+        }
+    }
+}
@@ -1,10 +1,23 @@
 package com.mg.redis.utils;
 
+import com.mg.redis.cache.RedisNearCache;
+import com.mg.redis.codec.RedisCodecRegistry;
+import com.mg.redis.limiter.RateLimitResult;
+import com.mg.redis.limiter.RateLimitRule;
+import com.mg.redis.limiter.RateLimiterRegistry;
+import com.mg.redis.limiter.RedisRateLimiter;
+import com.mg.redis.messaging.MessagingMetrics;
+import com.mg.redis.messaging.RedisMessaging;
+import com.mg.redis.queue.RedisWorkQueue;
+import com.mg.redis.queue.WorkQueueOptions;
 import lombok.extern.log4j.Log4j2;
 import org.redisson.api.*;
 import org.redisson.api.options.KeysScanOptions;
+import org.redisson.client.codec.Codec;
 import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -13,6 +26,7 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,13 +41,51 @@ import java.util.stream.Stream;
 @Log4j2
 @Component
 public class RedisUtil {
+    /**
+     * 按模式删除时每页 key 数
+     */
+    private static final int DELETE_BATCH_SIZE = 500;
+    /**
+     * 限流状态 key 前缀，存储结构变化时升级版本号，避免滚动发布期间新旧节点读写同一 key
+     */
+    private static final String RATE_LIMIT_KEY = "rate_limit:v2:";
     private static RedissonClient CLIENT;
     private static RedissonReactiveClient REACTIVE_CLIENT;
+    /**
+     * 本地近端缓存，未启用时为 null
+     */
+    private static RedisNearCache NEAR_CACHE;
+    /**
+     * 按 key 前缀选择编码，未配置时使用客户端默认编码
+     */
+    private static RedisCodecRegistry CODECS;
+    private static RedisRateLimiter RATE_LIMITER;
+    private static RateLimiterRegistry RATE_LIMITERS;
+    private static RedisMessaging MESSAGING;
 
     @Autowired
-    public RedisUtil(RedissonClient redissonClient, RedissonReactiveClient redissonReactiveClient) {
+    public RedisUtil(RedissonClient redissonClient, RedissonReactiveClient redissonReactiveClient,
+                     ObjectProvider<RedisNearCache> nearCache, ObjectProvider<RedisCodecRegistry> codecs,
+                     ObjectProvider<RedisRateLimiter> rateLimiter, ObjectProvider<RedisMessaging> messaging) {
         CLIENT = redissonClient;
         REACTIVE_CLIENT = redissonReactiveClient;
+        NEAR_CACHE = nearCache.getIfAvailable();
+        CODECS = codecs.getIfAvailable();
+        RATE_LIMITER = rateLimiter.getIfAvailable(() -> new RedisRateLimiter(redissonClient, false));
+        RATE_LIMITERS = new RateLimiterRegistry(redissonClient, RATE_LIMITER);
+        MESSAGING = messaging.getIfAvailable(() -> new RedisMessaging(redissonClient, false, 4, 10000));
+    }
+
+    /**
+     * 非 spring 环境（如压测工具）使用：不启用近端缓存与按前缀编码，限流与发布订阅使用默认配置
+     */
+    public RedisUtil(RedissonClient redissonClient, RedissonReactiveClient redissonReactiveClient) {
+        this(redissonClient, redissonReactiveClient, empty(RedisNearCache.class), empty(RedisCodecRegistry.class),
+                empty(RedisRateLimiter.class), empty(RedisMessaging.class));
+    }
+
+    private static <T> ObjectProvider<T> empty(Class<T> type) {
+        return new StaticListableBeanFactory().getBeanProvider(type);
     }
 
     /**
@@ -43,6 +95,65 @@ public class RedisUtil {
         return CLIENT;
     }
 
+    /**
+     * 近端缓存命中统计，未启用时返回 null
+     */
+    public static RedisNearCache.Stats getNearCacheStats() {
+        return NEAR_CACHE == null ? null : NEAR_CACHE.stats();
+    }
+
+    /**
+     * 创建批量操作，多个命令一次管道发送
+     */
+    public static RedisBatch batch() {
+        return batch(RedisBatch.pipelined());
+    }
+
+    /**
+     * 创建批量操作
+     *
+     * @param options RedisBatch.pipelined() 或 RedisBatch.atomic()
+     */
+    public static RedisBatch batch(BatchOptions options) {
+        return new RedisBatch(CLIENT.createBatch(options));
+    }
+
+    /**
+     * key 对应的值编码
+     */
+    static Codec codec(String key) {
+        return CODECS == null ? CLIENT.getConfig().getCodec() : CODECS.resolve(key);
+    }
+
+    /**
+     * 写入或删除后失效近端缓存
+     */
+    static void invalidate(String key) {
+        if (NEAR_CACHE != null) {
+            NEAR_CACHE.invalidate(key);
+        }
+    }
+
+    static RedissonReactiveClient reactiveClient() {
+        return REACTIVE_CLIENT;
+    }
+
+    static RedisRateLimiter limiter() {
+        return RATE_LIMITER;
+    }
+
+    static RateLimiterRegistry limiters() {
+        return RATE_LIMITERS;
+    }
+
+    static RedisMessaging messaging() {
+        return MESSAGING;
+    }
+
+    private static boolean nearCached(String key) {
+        return NEAR_CACHE != null && NEAR_CACHE.matches(key);
+    }
+
     /**
      * 限流方法--令牌桶
      *
@@ -53,16 +164,12 @@ public class RedisUtil {
      * @return 剩余许可数（-1表示被限流）
      */
     public static long rateLimiter(String key, RateType rateType, long rate, Duration intervalDuration) {
-        RRateLimiter rateLimiter = CLIENT.getRateLimiter(key);
-        rateLimiter.setRate(rateType, rate, intervalDuration);
-        if (rateLimiter.tryAcquire()) {
-            return rateLimiter.availablePermits();
-        }
-        return -1L;
+        // 规则按 key 缓存，判定与剩余许可数一次往返返回
+        return RATE_LIMITERS.tryAcquire(key, rateType, rate, intervalDuration);
     }
 
     /**
-     * 判断是否允许通过限流
+     * 判断是否允许通过限流（滑动窗口计数）
      *
      * @param key          限流Key（建议包含业务维度，如 user:123, api:/login）
      * @param limit        限流阈值（在窗口期内允许的请求数）
@@ -70,37 +177,22 @@ public class RedisUtil {
      * @return true=允许请求；false=被限流
      */
     public static boolean allow(String key, int limit, long windowMillis) {
-        RScript script = CLIENT.getScript(StringCodec.INSTANCE);
-
-        // Lua脚本
-        String lua = "local key = KEYS[1] " +
-                "local now = tonumber(ARGV[1]) " +
-                "local window = tonumber(ARGV[2]) " +
-                "local limit = tonumber(ARGV[3]) " +
-                "local expire = tonumber(ARGV[4]) " +
-                "redis.call('ZREMRANGEBYSCORE', key, 0, now - window) " +
-                "local count = redis.call('ZCARD', key) " +
-                "if count < limit then " +
-                "  redis.call('ZADD', key, now, now) " +
-                "  redis.call('EXPIRE', key, expire) " +
-                "  return 1 " +
-                "else " +
-                "  return 0 " +
-                "end";
-
-        long now = System.currentTimeMillis();
-
-        // 设置过期时间稍微大一点，防止极端延迟导致key提前过期
-        long expireSeconds = (windowMillis / 1000) + 5;
+        return allow(key, RateLimitRule.slidingWindow(limit, Duration.ofMillis(windowMillis))).allowed();
+    }
 
-        Boolean allowed = script.eval(
-                RScript.Mode.READ_WRITE,
-                lua,
-                RScript.ReturnType.BOOLEAN,
-                Collections.singletonList("rate_limit:" + key),
-                now, windowMillis, limit, expireSeconds
-        );
-        return Boolean.TRUE.equals(allowed);
+    /**
+     * 按规则限流，可选滑动窗口计数、GCRA、令牌桶
+     * <p>
+     * 状态存放在 rate_limit:v2:{算法}:{key}：旧版本在 rate_limit:{key} 下存的是 zset，
+     * 新旧节点滚动发布期间共用同一 key 会报 WRONGTYPE；各算法的存储结构也不同，同一业务 key 换算法时互不干扰。
+     * 旧 key 按原有效期自然过期，无需清理
+     *
+     * @param key  限流Key
+     * @param rule 限流规则
+     * @return 是否放行及被拒绝时的等待时间
+     */
+    public static RateLimitResult allow(String key, RateLimitRule rule) {
+        return RATE_LIMITER.tryAcquire(RATE_LIMIT_KEY + rule.algorithm().name().toLowerCase(Locale.ROOT) + ":" + key, rule);
     }
 
 
@@ -109,11 +201,10 @@ public class RedisUtil {
      *
      * @param channelKey 通道key
      * @param msg        发送数据
-     * @param consumer   自定义处理
+     * @param consumer   发布成功后的自定义处理
      */
     public static <T> void publish(String channelKey, T msg, Consumer<T> consumer) {
-        RTopic topic = CLIENT.getTopic(channelKey);
-        topic.publish(msg);
+        MESSAGING.publish(channelKey, msg);
         consumer.accept(msg);
     }
 
@@ -122,25 +213,70 @@ public class RedisUtil {
      *
      * @param channelKey 通道key
      * @param msg        发送数据
+     * @return 收到消息的订阅连接数，0 表示当前没有任何节点订阅该通道
      */
-    public static <T> void publish(String channelKey, T msg) {
-        // 根据频道键获取频道主题
-        RTopic topic = CLIENT.getTopic(channelKey);
-        // 将消息发布到主题
-        topic.publish(msg);
+    public static <T> long publish(String channelKey, T msg) {
+        return MESSAGING.publish(channelKey, msg);
     }
 
+    /**
+     * 批量发布通道消息，一次往返
+     *
+     * @param channelKey 通道key
+     * @param messages   发送数据
+     */
+    public static <T> void publishAll(String channelKey, Collection<T> messages) {
+        MESSAGING.publishAll(channelKey, messages);
+    }
 
     /**
-     * 订阅通道接收消息
+     * 订阅通道接收消息，同一通道的消息在本地分发线程中按序处理
      *
      * @param channelKey 通道key
      * @param clazz      消息类型
      * @param consumer   自定义处理
+     * @return 监听器 ID，用于取消订阅
+     */
+    public static <T> int subscribe(String channelKey, Class<T> clazz, Consumer<T> consumer) {
+        return MESSAGING.subscribe(channelKey, clazz, consumer);
+    }
+
+    /**
+     * 取消订阅
+     *
+     * @param channelKey 通道key
+     * @param listenerId subscribe 返回的监听器 ID
+     */
+    public static void unsubscribe(String channelKey, int listenerId) {
+        MESSAGING.unsubscribe(channelKey, listenerId);
+    }
+
+    /**
+     * 发布订阅按通道统计
+     */
+    public static Map<String, MessagingMetrics.Snapshot> getMessagingMetrics() {
+        return MESSAGING.snapshot();
+    }
+
+    /**
+     * 基于 stream 的持久化工作队列，使用默认消费参数
+     *
+     * @param name 队列key
+     * @param type 任务类型
+     */
+    public static <T> RedisWorkQueue<T> workQueue(String name, Class<T> type) {
+        return workQueue(name, type, WorkQueueOptions.defaults());
+    }
+
+    /**
+     * 基于 stream 的持久化工作队列
+     *
+     * @param name    队列key
+     * @param type    任务类型
+     * @param options 消费参数
      */
-    public static <T> void subscribe(String channelKey, Class<T> clazz, Consumer<T> consumer) {
-        RTopic topic = CLIENT.getTopic(channelKey);
-        topic.addListener(clazz, (channel, msg) -> consumer.accept(msg));
+    public static <T> RedisWorkQueue<T> workQueue(String name, Class<T> type, WorkQueueOptions options) {
+        return new RedisWorkQueue<>(CLIENT, name, type, codec(name), options);
     }
 
     /**
@@ -162,7 +298,7 @@ public class RedisUtil {
      * @since Redis 6.X 以上使用 setAndKeepTTL 兼容 5.X 方案
      */
     public static <T> void setCacheObject(final String key, final T value, final boolean isSaveTtl) {
-        RBucket<T> bucket = CLIENT.getBucket(key);
+        RBucket<T> bucket = CLIENT.getBucket(key, codec(key));
         if (isSaveTtl) {
             try {
                 bucket.setAndKeepTTL(value);
@@ -177,6 +313,7 @@ public class RedisUtil {
         } else {
             bucket.set(value);
         }
+        invalidate(key);
     }
 
     /**
@@ -188,10 +325,11 @@ public class RedisUtil {
      */
     public static <T> void setCacheObject(final String key, final T value, final Duration duration) {
         RBatch batch = CLIENT.createBatch();
-        RBucketAsync<T> bucket = batch.getBucket(key);
+        RBucketAsync<T> bucket = batch.getBucket(key, codec(key));
         bucket.setAsync(value);
         bucket.expireAsync(duration);
         batch.execute();
+        invalidate(key);
     }
 
     /**
@@ -202,8 +340,12 @@ public class RedisUtil {
      * @return set成功或失败
      */
     public static <T> boolean setObjectIfAbsent(final String key, final T value, final Duration duration) {
-        RBucket<T> bucket = CLIENT.getBucket(key);
-        return bucket.setIfAbsent(value, duration);
+        RBucket<T> bucket = CLIENT.getBucket(key, codec(key));
+        boolean set = bucket.setIfAbsent(value, duration);
+        if (set) {
+            invalidate(key);
+        }
+        return set;
     }
 
     /**
@@ -214,8 +356,12 @@ public class RedisUtil {
      * @return set成功或失败
      */
     public static <T> boolean setObjectIfExists(final String key, final T value, final Duration duration) {
-        RBucket<T> bucket = CLIENT.getBucket(key);
-        return bucket.setIfExists(value, duration);
+        RBucket<T> bucket = CLIENT.getBucket(key, codec(key));
+        boolean set = bucket.setIfExists(value, duration);
+        if (set) {
+            invalidate(key);
+        }
+        return set;
     }
 
     /**
@@ -227,7 +373,7 @@ public class RedisUtil {
      * @param listener 监听器配置
      */
     public static <T> void addObjectListener(final String key, final ObjectListener listener) {
-        RBucket<T> result = CLIENT.getBucket(key);
+        RBucket<T> result = CLIENT.getBucket(key, codec(key));
         result.addListener(listener);
     }
 
@@ -250,7 +396,7 @@ public class RedisUtil {
      * @return true=设置成功；false=设置失败
      */
     public static boolean expire(final String key, final Duration duration) {
-        RBucket<Object> rBucket = CLIENT.getBucket(key);
+        RBucket<Object> rBucket = CLIENT.getBucket(key, codec(key));
         return rBucket.expire(duration);
     }
 
@@ -261,7 +407,10 @@ public class RedisUtil {
      * @return 缓存键值对应的数据
      */
     public static <T> T getCacheObject(final String key) {
-        RBucket<T> rBucket = CLIENT.getBucket(key);
+        RBucket<T> rBucket = CLIENT.getBucket(key, codec(key));
+        if (nearCached(key)) {
+            return NEAR_CACHE.get(key, rBucket::get);
+        }
         return rBucket.get();
     }
 
@@ -272,7 +421,7 @@ public class RedisUtil {
      * @return 剩余存活时间
      */
     public static <T> long getTimeToLive(final String key) {
-        RBucket<T> rBucket = CLIENT.getBucket(key);
+        RBucket<T> rBucket = CLIENT.getBucket(key, codec(key));
         return rBucket.remainTimeToLive();
     }
 
@@ -282,7 +431,25 @@ public class RedisUtil {
      * @param key 缓存的键值
      */
     public static boolean deleteObject(final String key) {
-        return CLIENT.getBucket(key).delete();
+        boolean deleted = CLIENT.getBucket(key, codec(key)).delete();
+        invalidate(key);
+        return deleted;
+    }
+
+    /**
+     * 值等于 expected 时删除（原子比较删除），用于只释放自己持有的 key
+     *
+     * @param key      缓存的键值
+     * @param expected 期望的当前值
+     * @return 是否删除
+     */
+    public static <T> boolean deleteObjectIfEquals(final String key, final T expected) {
+        RBucket<T> bucket = CLIENT.getBucket(key, codec(key));
+        boolean deleted = bucket.compareAndSet(expected, null);
+        if (deleted) {
+            invalidate(key);
+        }
+        return deleted;
     }
 
     /**
@@ -291,10 +458,8 @@ public class RedisUtil {
      * @param collection 多个对象
      */
     public static void deleteObject(final Collection collection) {
-        RBatch batch = CLIENT.createBatch();
-        collection.forEach(t -> {
-            batch.getBucket(t.toString()).deleteAsync();
-        });
+        RedisBatch batch = batch();
+        collection.forEach(t -> batch.delete(t.toString()));
         batch.execute();
     }
 
@@ -304,7 +469,7 @@ public class RedisUtil {
      * @param key 缓存的键值
      */
     public static boolean isExistsObject(final String key) {
-        return CLIENT.getBucket(key).isExists();
+        return CLIENT.getBucket(key, codec(key)).isExists();
     }
 
     /**
@@ -315,7 +480,7 @@ public class RedisUtil {
      * @return 缓存的对象
      */
     public static <T> boolean setCacheList(final String key, final List<T> dataList) {
-        RList<T> rList = CLIENT.getList(key);
+        RList<T> rList = CLIENT.getList(key, codec(key));
         return rList.addAll(dataList);
     }
 
@@ -327,7 +492,7 @@ public class RedisUtil {
      * @return 缓存的对象
      */
     public static <T> boolean addCacheList(final String key, final T data) {
-        RList<T> rList = CLIENT.getList(key);
+        RList<T> rList = CLIENT.getList(key, codec(key));
         return rList.add(data);
     }
 
@@ -340,7 +505,7 @@ public class RedisUtil {
      * @param listener 监听器配置
      */
     public static <T> void addListListener(final String key, final ObjectListener listener) {
-        RList<T> rList = CLIENT.getList(key);
+        RList<T> rList = CLIENT.getList(key, codec(key));
         rList.addListener(listener);
     }
 
@@ -351,7 +516,7 @@ public class RedisUtil {
      * @return 缓存键值对应的数据
      */
     public static <T> List<T> getCacheList(final String key) {
-        RList<T> rList = CLIENT.getList(key);
+        RList<T> rList = CLIENT.getList(key, codec(key));
         return rList.readAll();
     }
 
@@ -364,7 +529,7 @@ public class RedisUtil {
      * @return 缓存键值对应的数据
      */
     public static <T> List<T> getCacheListRange(final String key, int form, int to) {
-        RList<T> rList = CLIENT.getList(key);
+        RList<T> rList = CLIENT.getList(key, codec(key));
         return rList.range(form, to);
     }
 
@@ -376,7 +541,7 @@ public class RedisUtil {
      * @return 缓存数据的对象
      */
     public static <T> boolean setCacheSet(final String key, final Set<T> dataSet) {
-        RSet<T> rSet = CLIENT.getSet(key);
+        RSet<T> rSet = CLIENT.getSet(key, codec(key));
         return rSet.addAll(dataSet);
     }
 
@@ -388,7 +553,7 @@ public class RedisUtil {
      * @return 缓存的对象
      */
     public static <T> boolean addCacheSet(final String key, final T data) {
-        RSet<T> rSet = CLIENT.getSet(key);
+        RSet<T> rSet = CLIENT.getSet(key, codec(key));
         return rSet.add(data);
     }
 
@@ -401,7 +566,7 @@ public class RedisUtil {
      * @param listener 监听器配置
      */
     public static <T> void addSetListener(final String key, final ObjectListener listener) {
-        RSet<T> rSet = CLIENT.getSet(key);
+        RSet<T> rSet = CLIENT.getSet(key, codec(key));
         rSet.addListener(listener);
     }
 
@@ -412,7 +577,7 @@ public class RedisUtil {
      * @return set对象
      */
     public static <T> Set<T> getCacheSet(final String key) {
-        RSet<T> rSet = CLIENT.getSet(key);
+        RSet<T> rSet = CLIENT.getSet(key, codec(key));
         return rSet.readAll();
     }
 
@@ -424,8 +589,9 @@ public class RedisUtil {
      */
     public static <T> void setCacheMap(final String key, final Map<String, T> dataMap) {
         if (dataMap != null) {
-            RMap<String, T> rMap = CLIENT.getMap(key);
+            RMap<String, T> rMap = CLIENT.getMap(key, codec(key));
             rMap.putAll(dataMap);
+            invalidate(key);
         }
     }
 
@@ -438,9 +604,10 @@ public class RedisUtil {
      */
     public static <T> void setCacheMap(final String key, final Map<String, T> dataMap, final Duration duration) {
         if (dataMap != null) {
-            RMap<String, T> rMap = CLIENT.getMap(key);
+            RMap<String, T> rMap = CLIENT.getMap(key, codec(key));
             rMap.putAll(dataMap);
             rMap.expire(duration);
+            invalidate(key);
         }
     }
 
@@ -453,7 +620,7 @@ public class RedisUtil {
      * @param listener 监听器配置
      */
     public static <T> void addMapListener(final String key, final ObjectListener listener) {
-        RMap<String, T> rMap = CLIENT.getMap(key);
+        RMap<String, T> rMap = CLIENT.getMap(key, codec(key));
         rMap.addListener(listener);
     }
 
@@ -464,7 +631,10 @@ public class RedisUtil {
      * @return map对象
      */
     public static <T> Map<String, T> getCacheMap(final String key) {
-        RMap<String, T> rMap = CLIENT.getMap(key);
+        RMap<String, T> rMap = CLIENT.getMap(key, codec(key));
+        if (nearCached(key)) {
+            return NEAR_CACHE.getAll(key, rMap::readAllMap);
+        }
         return rMap.getAll(rMap.keySet());
     }
 
@@ -475,7 +645,7 @@ public class RedisUtil {
      * @return key列表
      */
     public static <T> Set<String> getCacheMapKeySet(final String key) {
-        RMap<String, T> rMap = CLIENT.getMap(key);
+        RMap<String, T> rMap = CLIENT.getMap(key, codec(key));
         return rMap.keySet();
     }
 
@@ -487,8 +657,9 @@ public class RedisUtil {
      * @param value 值
      */
     public static <T> void setCacheMapValue(final String key, final String hKey, final T value) {
-        RMap<String, T> rMap = CLIENT.getMap(key);
+        RMap<String, T> rMap = CLIENT.getMap(key, codec(key));
         rMap.put(hKey, value);
+        invalidate(key);
     }
 
     /**
@@ -499,7 +670,10 @@ public class RedisUtil {
      * @return Hash中的对象
      */
     public static <T> T getCacheMapValue(final String key, final String hKey) {
-        RMap<String, T> rMap = CLIENT.getMap(key);
+        RMap<String, T> rMap = CLIENT.getMap(key, codec(key));
+        if (nearCached(key)) {
+            return NEAR_CACHE.getField(key, hKey, () -> rMap.get(hKey));
+        }
         return rMap.get(hKey);
     }
 
@@ -511,8 +685,10 @@ public class RedisUtil {
      * @return Hash中的对象
      */
     public static <T> T delCacheMapValue(final String key, final String hKey) {
-        RMap<String, T> rMap = CLIENT.getMap(key);
-        return rMap.remove(hKey);
+        RMap<String, T> rMap = CLIENT.getMap(key, codec(key));
+        T removed = rMap.remove(hKey);
+        invalidate(key);
+        return removed;
     }
 
     /**
@@ -523,11 +699,12 @@ public class RedisUtil {
      */
     public static <T> void delMultiCacheMapValue(final String key, final Set<String> hKeys) {
         RBatch batch = CLIENT.createBatch();
-        RMapAsync<String, T> rMap = batch.getMap(key);
+        RMapAsync<String, T> rMap = batch.getMap(key, codec(key));
         for (String hKey : hKeys) {
             rMap.removeAsync(hKey);
         }
         batch.execute();
+        invalidate(key);
     }
 
     /**
@@ -538,7 +715,7 @@ public class RedisUtil {
      * @return Hash对象集合
      */
     public static <K, V> Map<K, V> getMultiCacheMapValue(final String key, final Set<K> hKeys) {
-        RMap<K, V> rMap = CLIENT.getMap(key);
+        RMap<K, V> rMap = CLIENT.getMap(key, codec(key));
         return rMap.getAll(hKeys);
     }
 
@@ -604,19 +781,115 @@ public class RedisUtil {
      *
      * @param pattern 字符串前缀
      * @return 对象列表
+     * @deprecated 全部 key 一次性收集到内存，大库请用 scanKeys 分页处理
      */
+    @Deprecated
     public static Collection<String> keys(final String pattern) {
         Stream<String> stream = CLIENT.getKeys().getKeysStreamByPattern(pattern);
         return stream.collect(Collectors.toList());
     }
 
     /**
-     * 删除缓存的基本对象列表
+     * 游标分页扫描 key：每次 SCAN 取 pageSize 个，凑满一页交给 consumer，内存只保留一页
+     *
+     * @param pattern  key 模式
+     * @param pageSize 每页 key 数（同时作为 SCAN COUNT）
+     * @param consumer 页处理，返回 false 时停止扫描
+     * @return 扫描到的 key 总数
+     */
+    public static long scanKeys(final String pattern, final int pageSize, final Predicate<List<String>> consumer) {
+        Iterable<String> keys = CLIENT.getKeys().getKeys(KeysScanOptions.defaults().pattern(pattern).chunkSize(pageSize));
+        List<String> page = new ArrayList<>(pageSize);
+        long total = 0;
+        for (String key : keys) {
+            page.add(key);
+            if (page.size() == pageSize) {
+                total += page.size();
+                if (!consumer.test(page)) {
+                    return total;
+                }
+                page = new ArrayList<>(pageSize);
+            }
+        }
+        if (!page.isEmpty()) {
+            total += page.size();
+            consumer.test(page);
+        }
+        return total;
+    }
+
+    /**
+     * 按 master 并行扫描 key：集群模式下每个 master 各自游标扫描并合并，背压控制拉取速度
+     *
+     * @param pattern  key 模式
+     * @param pageSize SCAN COUNT
+     */
+    public static Flux<String> scanKeysParallel(final String pattern, final int pageSize) {
+        return REACTIVE_CLIENT.getKeys().getKeys(KeysScanOptions.defaults().pattern(pattern).chunkSize(pageSize));
+    }
+
+    /**
+     * 删除缓存的基本对象列表，分页 UNLINK，见 deleteKeys(String, int, Duration)
      *
      * @param pattern 字符串前缀
      */
     public static void deleteKeys(final String pattern) {
-        CLIENT.getKeys().deleteByPattern(pattern);
+        deleteKeys(pattern, DELETE_BATCH_SIZE, Duration.ZERO);
+    }
+
+    /**
+     * 按模式分页删除：每页一次 UNLINK（value 在 redis 后台线程释放），页之间可暂停以限制对线上请求的影响
+     *
+     * @param pattern   key 模式
+     * @param batchSize 每页 key 数
+     * @param pause     页之间的暂停时间，线程被中断时停止删除
+     * @return 删除的 key 数
+     */
+    public static long deleteKeys(final String pattern, final int batchSize, final Duration pause) {
+        RKeys rKeys = CLIENT.getKeys();
+        long[] deleted = {0};
+        scanKeys(pattern, batchSize, page -> {
+            deleted[0] += rKeys.unlink(page.toArray(new String[0]));
+            if (pause.isZero() || pause.isNegative()) {
+                return true;
+            }
+            try {
+                Thread.sleep(pause.toMillis());
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        if (NEAR_CACHE != null) {
+            NEAR_CACHE.invalidateAll();
+        }
+        return deleted[0];
+    }
+
+    /**
+     * 按 master 并行扫描并分页删除，不阻塞调用线程
+     *
+     * @param pattern     key 模式
+     * @param batchSize   每页 key 数
+     * @param concurrency 同时执行的 UNLINK 数
+     * @param pause       页之间的间隔，用于限速
+     * @return 删除的 key 数
+     */
+    public static Mono<Long> deleteKeysParallel(final String pattern, final int batchSize, final int concurrency,
+                                                final Duration pause) {
+        RKeysReactive rKeys = REACTIVE_CLIENT.getKeys();
+        Flux<List<String>> pages = scanKeysParallel(pattern, batchSize).buffer(batchSize);
+        if (!pause.isZero() && !pause.isNegative()) {
+            pages = pages.delayElements(pause);
+        }
+        return pages.flatMap(page -> rKeys.unlink(page.toArray(new String[0])), concurrency)
+                .reduce(0L, Long::sum)
+                .doFinally(signal -> {
+                    if (NEAR_CACHE != null) {
+                        NEAR_CACHE.invalidateAll();
+                    }
+                });
     }
 
     /**
@@ -0,0 +1,122 @@
+package com.mg.redis.codec;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+import org.redisson.client.codec.Codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * packageName com.mg.redis.codec
+ * 编码格式与可选依赖
+ *
+ * @author mj
+ * @className RedisCodecTypeTest
+ * @date 2026/10/19
+ * @description smile/cbor/lz4 在 common-redis 中是 optional 依赖，使用方默认不会引入；
+ * 这里用隐藏这些包的类加载器重新加载编码相关类，确认默认的 JSON 编码不依赖它们
+ */
+class RedisCodecTypeTest {
+    private static final String CODEC_PACKAGE = "com.mg.redis.codec.";
+    private static final List<String> OPTIONAL_PACKAGES = List.of(
+            "com.fasterxml.jackson.dataformat.smile.", "com.fasterxml.jackson.dataformat.cbor.", "net.jpountz.");
+
+    @Test
+    void jsonWorksWithoutOptionalFormats() throws Exception {
+        ClassLoader loader = new WithoutOptionalFormats(getClass().getClassLoader());
+        Codec codec = (Codec) defaultCodec(loader, "JSON");
+        Map<String, Object> value = sample();
+        assertEquals(value, roundTrip(codec, value));
+    }
+
+    @Test
+    void missingFormatFailsWithDependencyHint() {
+        ClassLoader loader = new WithoutOptionalFormats(getClass().getClassLoader());
+        InvocationTargetException e = assertThrows(InvocationTargetException.class, () -> defaultCodec(loader, "SMILE"));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void everyFormatRoundTrips() throws IOException {
+        Map<String, Object> value = sample();
+        for (RedisCodecType type : RedisCodecType.values()) {
+            // 阈值 1 让所有值都经过 lz4 压缩
+            for (int threshold : new int[]{0, 1}) {
+                Codec codec = new RedisCodecRegistry(type, Map.of(), threshold).defaultCodec();
+                assertEquals(value, roundTrip(codec, value), type + " threshold=" + threshold);
+            }
+        }
+    }
+
+    private static Object defaultCodec(ClassLoader loader, String type) throws Exception {
+        Class<?> typeClass = loader.loadClass(CODEC_PACKAGE + "RedisCodecType");
+        Class<?> registryClass = loader.loadClass(CODEC_PACKAGE + "RedisCodecRegistry");
+        Object codecType = typeClass.getMethod("valueOf", String.class).invoke(null, type);
+        Object registry = registryClass.getConstructor(typeClass, Map.class, int.class)
+                .newInstance(codecType, Map.of(), 0);
+        return registryClass.getMethod("defaultCodec").invoke(registry);
+    }
+
+    private static Object roundTrip(Codec codec, Object value) throws IOException {
+        ByteBuf buf = codec.getValueEncoder().encode(value);
+        try {
+            return codec.getValueDecoder().decode(buf, null);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static Map<String, Object> sample() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("cameraId", "cam-1");
+        value.put("channel", "live:channel:3");
+        value.put("bitrate", 2048);
+        return value;
+    }
+
+    /**
+     * 编码包中的类由本加载器重新定义，可选依赖的包一律找不到，其余类委托给父加载器
+     */
+    private static final class WithoutOptionalFormats extends ClassLoader {
+
+        WithoutOptionalFormats(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            for (String hidden : OPTIONAL_PACKAGES) {
+                if (name.startsWith(hidden)) {
+                    throw new ClassNotFoundException(name);
+                }
+            }
+            if (!name.startsWith(CODEC_PACKAGE) || name.startsWith(RedisCodecTypeTest.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded != null) {
+                    return loaded;
+                }
+                try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                    if (in == null) {
+                        throw new ClassNotFoundException(name);
+                    }
+                    byte[] bytes = in.readAllBytes();
+                    return defineClass(name, bytes, 0, bytes.length);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        }
+    }
+}
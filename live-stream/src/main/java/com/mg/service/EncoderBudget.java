@@ -0,0 +1,82 @@
+package com.mg.service;
+
+/**
+ * packageName com.mg.service
+ * 节点级编码线程预算：按 CPU 核数与当前活跃推流数给每路 x264 分配线程
+ *
+ * @author mj
+ * @className EncoderBudget
+ * @date 2026/10/19
+ * @description 避免每路编码器都按核数开线程导致线程数 = 路数 * 核数 相互争抢；
+ * 线程数只在编码器启动时分配，运行中的推流不随路数变化重建编码器（x264 不能在线调整线程数，重建会断开 RTMP 推流）。
+ * 已分配的线程在编码器退出时归还，新启动的推流只能分到未分配的核，路数不超过核数时总线程数不超过核数
+ */
+public class EncoderBudget {
+    /**
+     * 单路编码器最多使用的线程数（x264 超过 8 线程后收益很小，延迟反而增加）
+     */
+    private static final int MAX_THREADS_PER_STREAM = 8;
+
+    private final int totalCores;
+    private final boolean enabled;
+    private int activeStreams;
+    private int allocatedThreads;
+
+    public EncoderBudget() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public EncoderBudget(int totalCores) {
+        this(totalCores, true);
+    }
+
+    /**
+     * @param enabled 为 false 时不限制，编码器使用 x264 默认线程数，用于压测对比
+     */
+    public EncoderBudget(int totalCores, boolean enabled) {
+        this.totalCores = Math.max(1, totalCores);
+        this.enabled = enabled;
+    }
+
+    /**
+     * 编码器启动时登记
+     *
+     * @return 分配的线程数：核数 / 活跃路数与未分配核数中的较小值，至少 1，至多 MAX_THREADS_PER_STREAM；
+     * 预算关闭时返回 0，表示使用 x264 默认值；编码器退出时须以该值调用 release
+     */
+    public synchronized int acquire() {
+        activeStreams++;
+        if (!enabled) {
+            return 0;
+        }
+        int fairShare = totalCores / activeStreams;
+        int free = totalCores - allocatedThreads;
+        int threads = Math.max(1, Math.min(MAX_THREADS_PER_STREAM, Math.min(fairShare, free)));
+        allocatedThreads += threads;
+        return threads;
+    }
+
+    /**
+     * 编码器退出时归还 acquire 分配的线程
+     */
+    public synchronized void release(int threads) {
+        activeStreams = Math.max(0, activeStreams - 1);
+        allocatedThreads = Math.max(0, allocatedThreads - threads);
+    }
+
+    public synchronized int getActiveStreams() {
+        return activeStreams;
+    }
+
+    public synchronized int getAllocatedThreads() {
+        return allocatedThreads;
+    }
+
+    public int getTotalCores() {
+        return totalCores;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
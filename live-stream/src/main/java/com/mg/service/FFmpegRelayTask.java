@@ -19,60 +19,119 @@ import java.util.concurrent.TimeUnit;
  * @description TODO
  */
 public class FFmpegRelayTask implements Callable<String> {
-    private final String rtspUrl;
+    /**
+     * 输入源断开后的最大连续重连次数
+     */
+    private static final int MAX_RECONNECT_ATTEMPTS = 5;
+    private static final long MAX_RECONNECT_BACKOFF_MILLIS = 8000;
+    /**
+     * 部分摄像头上报的帧率是时间基而不是真实帧率（如 90000），超出该值按默认帧率处理
+     */
+    private static final double MAX_FRAME_RATE = 120;
+    private static final int AUDIO_BITRATE = 64000;
+
+    private final RelaySource source;
     private final String rtmpUrl;
     private final String channelKey;
-    private final String cameraId;
+    private final RelaySession session;
+    private final EncoderBudget encoderBudget;
 
 
-    public FFmpegRelayTask(String rtspUrl, String rtmpUrl, String channelKey, String cameraId) {
-        this.rtspUrl = rtspUrl;
+    public FFmpegRelayTask(RelaySource source, String rtmpUrl, String channelKey, RelaySession session, EncoderBudget encoderBudget) {
+        this.source = source;
         this.rtmpUrl = rtmpUrl;
         this.channelKey = channelKey;
-        this.cameraId = cameraId;
-
+        this.session = session;
+        this.encoderBudget = encoderBudget;
     }
 
     @Override
     public String call() throws Exception {
         FFmpegFrameGrabber grabber = null;
         FFmpegFrameRecorder recorder = null;
+        int encoderThreads = -1;
         try {
-            // 初始化 grabber
-            grabber = FFmpegFrameGrabber.createDefault(rtspUrl);
-            grabber.setOption("rtsp_transport", "tcp");
-            grabber.setOption("stimeout", "2000000");
-            grabber.start();
+            // 初始化 grabber，协议相关参数由输入源设置
+            session.transit(RelayState.PROBING);
+            grabber = openGrabber();
 
             int width = grabber.getImageWidth() > 0 ? grabber.getImageWidth() : 640;
             int height = grabber.getImageHeight() > 0 ? grabber.getImageHeight() : 480;
-            double frameRate = grabber.getFrameRate() > 0 ? grabber.getFrameRate() : 25;
-
-            // 初始化 recorder
-            recorder = new FFmpegFrameRecorder(rtmpUrl, width, height, 0);
-            recorder.setInterleaved(true);
-            recorder.setGopSize((int) Math.max(1, Math.round(frameRate)));
-            recorder.setVideoOption("tune", "zerolatency");
-            recorder.setVideoOption("preset", "ultrafast");
-            recorder.setVideoOption("crf", "28");
-            recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
-            recorder.setFormat("flv");
-            recorder.setFrameRate(frameRate);
-            recorder.setPixelFormat(avutil.AV_PIX_FMT_YUV420P);
-            recorder.start();
+            double frameRate = grabber.getFrameRate() > 0 && grabber.getFrameRate() <= MAX_FRAME_RATE ? grabber.getFrameRate() : 25;
+            // 音频参数取自输入源，没有音轨时为 0，编码器不创建音频流
+            int audioChannels = grabber.getAudioChannels();
+            int sampleRate = grabber.getSampleRate();
+
+            // 初始化 recorder，编码线程数在启动时由节点预算分配，运行期间不再调整：
+            // 重建编码器会断开 RTMP 推流，其它摄像头启停不应让正在观看的播放端断流
+            encoderThreads = encoderBudget.acquire();
+            recorder = startRecorder(width, height, frameRate, encoderThreads, audioChannels, sampleRate);
+            RelayClock clock = new RelayClock(frameRate);
+            session.transit(RelayState.STREAMING);
+            int reconnectAttempts = 0;
+            // 实时节奏：记录首帧时间戳与对应的墙钟时间
+            long paceBaseTimestamp = -1;
+            long paceBaseNanos = 0;
 
             // 推流循环：以 redis key 存在为继续条件，同时响应中断
-            RBucket<String> bucket = RedisUtil.getCacheObject(channelKey);
+            RBucket<String> bucket = RedisUtil.getClient().getBucket(channelKey);
             while (!Thread.currentThread().isInterrupted() && bucket.isExists()) {
                 // 抓一帧（阻塞）
-                org.bytedeco.javacv.Frame frame = grabber.grab();
+                org.bytedeco.javacv.Frame frame;
+                try {
+                    if (grabber == null) {
+                        grabber = openGrabber();
+                        paceBaseTimestamp = -1;
+                        session.transit(RelayState.STREAMING);
+                    }
+                    frame = grabber.grab();
+                } catch (FFmpegFrameGrabber.Exception e) {
+                    // 输入源断开：指数退避后在下一轮重新打开，超过次数判定失败
+                    if (++reconnectAttempts > MAX_RECONNECT_ATTEMPTS) {
+                        throw e;
+                    }
+                    session.transit(RelayState.RECONNECTING);
+                    closeGrabber(grabber);
+                    grabber = null;
+                    Thread.sleep(Math.min(MAX_RECONNECT_BACKOFF_MILLIS, 500L << (reconnectAttempts - 1)));
+                    continue;
+                }
+                reconnectAttempts = 0;
                 if (frame != null) {
+                    if (source.realTime() && frame.timestamp > 0) {
+                        if (paceBaseTimestamp < 0) {
+                            paceBaseTimestamp = frame.timestamp;
+                            paceBaseNanos = System.nanoTime();
+                        }
+                        long aheadNanos = (frame.timestamp - paceBaseTimestamp) * 1000 - (System.nanoTime() - paceBaseNanos);
+                        if (aheadNanos > 0) {
+                            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+                        }
+                    }
+                    if (frame.image != null) {
+                        // 视频帧使用重定基准后的时间戳，丢弃严重超前的帧
+                        long timestamp = clock.next(frame.timestamp);
+                        if (timestamp < 0) {
+                            continue;
+                        }
+                        recorder.setTimestamp(timestamp);
+                    } else if (frame.samples == null || audioChannels <= 0) {
+                        continue;
+                    }
                     try {
+                        // 音频帧时间戳由编码器按采样数累计，天然单调
                         recorder.record(frame);
                     } catch (Exception e) {
                         // 单帧异常：记录并继续
                         e.printStackTrace();
                     }
+                } else if (source.loop()) {
+                    // 文件读完：回到开头继续，并重置节奏基准
+                    grabber.setTimestamp(0);
+                    paceBaseTimestamp = -1;
+                } else if (source.realTime()) {
+                    // 非循环文件读完即结束
+                    break;
                 } else {
                     // 当 grab 返回 null 时，短暂休眠避免 busy-loop
                     Thread.sleep((long) (1000.0 / Math.max(1, Math.round(frameRate))));
@@ -81,35 +140,92 @@ public class FFmpegRelayTask implements Callable<String> {
                 bucket.expire(60, TimeUnit.SECONDS);
             }
 
+            session.transit(RelayState.DRAINING);
             return "finished";
         } catch (InterruptedException ie) {
             // 处理中断：优雅退出
+            session.transit(RelayState.DRAINING);
             Thread.currentThread().interrupt();
             throw ie;
+        } catch (Exception e) {
+            session.fail(e.getMessage());
+            throw e;
         } finally {
-            // 清理资源：删除 redis 键并释放 grabber/recorder
+            if (encoderThreads >= 0) {
+                encoderBudget.release(encoderThreads);
+            }
+            // 清理资源：只删除仍属于本会话的 redis 键，再释放 grabber/recorder
             try {
-                RedisUtil.deleteObject(channelKey);
+                RedisUtil.deleteObjectIfEquals("camera:map:" + session.getCameraId(), channelKey);
+                RedisUtil.deleteObjectIfEquals(channelKey, session.getCameraId());
             } catch (Exception ignored) {
             }
+
+            closeGrabber(grabber);
+            closeRecorder(recorder);
+        }
+    }
+
+    private FFmpegFrameGrabber openGrabber() throws FFmpegFrameGrabber.Exception {
+        FFmpegFrameGrabber grabber = FFmpegFrameGrabber.createDefault(source.url());
+        source.configure(grabber);
+        try {
+            grabber.start();
+        } catch (FFmpegFrameGrabber.Exception e) {
+            closeGrabber(grabber);
+            throw e;
+        }
+        return grabber;
+    }
+
+    private void closeGrabber(FFmpegFrameGrabber grabber) {
+        if (grabber != null) {
             try {
-                RedisUtil.deleteObject("camera:map:" + cameraId);
+                grabber.stop();
+                grabber.release();
             } catch (Exception ignored) {
             }
+        }
+    }
 
-            if (grabber != null) {
-                try {
-                    grabber.stop();
-                    grabber.release();
-                } catch (Exception ignored) {
-                }
+    /**
+     * 创建并启动 recorder
+     * threads 限制单路 x264 线程数，0 表示使用 x264 默认值；多线程时使用 slice 线程，不引入帧级线程带来的额外延迟
+     * 视频需要转码，javacv 无法同时对音频做 packet 级透传，音频统一转为 AAC
+     */
+    private FFmpegFrameRecorder startRecorder(int width, int height, double frameRate, int threads,
+                                              int audioChannels, int sampleRate) throws Exception {
+        FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(rtmpUrl, width, height, Math.max(0, audioChannels));
+        recorder.setInterleaved(true);
+        recorder.setGopSize((int) Math.max(1, Math.round(frameRate)));
+        recorder.setVideoOption("tune", "zerolatency");
+        recorder.setVideoOption("preset", "ultrafast");
+        recorder.setVideoOption("crf", "28");
+        if (threads > 0) {
+            recorder.setVideoOption("threads", String.valueOf(threads));
+            recorder.setVideoOption("thread_type", threads > 1 ? "slice" : "frame");
+        }
+        recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
+        recorder.setFormat("flv");
+        recorder.setFrameRate(frameRate);
+        recorder.setPixelFormat(avutil.AV_PIX_FMT_YUV420P);
+        if (audioChannels > 0) {
+            recorder.setAudioCodec(avcodec.AV_CODEC_ID_AAC);
+            recorder.setAudioBitrate(AUDIO_BITRATE);
+            if (sampleRate > 0) {
+                recorder.setSampleRate(sampleRate);
             }
-            if (recorder != null) {
-                try {
-                    recorder.stop();
-                    recorder.release();
-                } catch (Exception ignored) {
-                }
+        }
+        recorder.start();
+        return recorder;
+    }
+
+    private void closeRecorder(FFmpegFrameRecorder recorder) {
+        if (recorder != null) {
+            try {
+                recorder.stop();
+                recorder.release();
+            } catch (Exception ignored) {
             }
         }
     }
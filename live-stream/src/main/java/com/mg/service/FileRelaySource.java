@@ -0,0 +1,42 @@
+package com.mg.service;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+
+/**
+ * packageName com.mg.service
+ * 本地文件输入源
+ *
+ * @author mj
+ * @className FileRelaySource
+ * @date 2026/10/19
+ * @description 循环播放并按实时节奏读取，用于离线压测
+ */
+public class FileRelaySource implements RelaySource {
+    private final String path;
+    private final boolean loop;
+
+    public FileRelaySource(String path, boolean loop) {
+        this.path = path;
+        this.loop = loop;
+    }
+
+    @Override
+    public String url() {
+        return path;
+    }
+
+    @Override
+    public void configure(FFmpegFrameGrabber grabber) {
+        // 本地文件无需网络相关参数
+    }
+
+    @Override
+    public boolean loop() {
+        return loop;
+    }
+
+    @Override
+    public boolean realTime() {
+        return true;
+    }
+}
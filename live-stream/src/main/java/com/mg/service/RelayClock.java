@@ -0,0 +1,86 @@
+package com.mg.service;
+
+/**
+ * packageName com.mg.service
+ * 视频输出时间戳重定基准与抖动平滑
+ *
+ * @author mj
+ * @className RelayClock
+ * @date 2026/10/19
+ * @description 输出时间戳从 0 开始单调递增并对齐到帧间隔网格，播放端可以用很小的缓冲稳定播放
+ */
+public class RelayClock {
+    /**
+     * 输入时间戳回退或跳变超过该值视为不连续（重连、文件循环），重新锚定
+     */
+    private static final long DISCONTINUITY_MICROS = 1_000_000;
+    /**
+     * 输出领先输入超过该值时丢帧追赶，避免源帧率高于标称帧率时延迟不断累积
+     */
+    private static final long MAX_DRIFT_MICROS = 200_000;
+
+    private final long frameIntervalMicros;
+    private final long jitterToleranceMicros;
+
+    private long inputBase = -1;
+    private long outputBase;
+    private long lastInput = -1;
+    private long lastOutput = -1;
+    private long droppedFrames;
+
+    public RelayClock(double frameRate) {
+        this.frameIntervalMicros = Math.max(1, Math.round(1_000_000 / frameRate));
+        this.jitterToleranceMicros = frameIntervalMicros / 2;
+    }
+
+    /**
+     * 计算视频帧的输出时间戳（微秒）
+     *
+     * @param inputMicros 输入帧时间戳，缺失时传 0 或负数
+     * @return 输出时间戳；返回 -1 表示该帧应丢弃
+     */
+    public long next(long inputMicros) {
+        if (lastOutput < 0) {
+            inputBase = inputMicros;
+            outputBase = 0;
+            lastInput = inputMicros;
+            lastOutput = 0;
+            return 0;
+        }
+        long expected = lastOutput + frameIntervalMicros;
+        if (inputMicros <= 0) {
+            // 没有时间戳：按标称帧率推进
+            lastOutput = expected;
+            return expected;
+        }
+        if (inputMicros < lastInput || inputMicros - lastInput > DISCONTINUITY_MICROS) {
+            // 不连续：从上一帧之后一个帧间隔处接续
+            inputBase = inputMicros;
+            outputBase = expected;
+        }
+        lastInput = inputMicros;
+
+        long raw = outputBase + (inputMicros - inputBase);
+        long diff = raw - expected;
+        long out;
+        if (Math.abs(diff) <= jitterToleranceMicros) {
+            // 抖动范围内：吸附到网格
+            out = expected;
+        } else if (diff > 0) {
+            // 源端确实丢了帧：保留间隔，仍对齐到网格
+            out = expected + Math.round((double) diff / frameIntervalMicros) * frameIntervalMicros;
+        } else if (-diff > MAX_DRIFT_MICROS) {
+            droppedFrames++;
+            return -1;
+        } else {
+            // 帧到得过密：顺延一个帧间隔，保证单调
+            out = expected;
+        }
+        lastOutput = out;
+        return out;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+}
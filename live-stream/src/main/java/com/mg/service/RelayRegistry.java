@@ -0,0 +1,56 @@
+package com.mg.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * packageName com.mg.service
+ * 推流会话注册表（无锁）：cameraId -> RelaySession
+ *
+ * @author mj
+ * @className RelayRegistry
+ * @date 2026/10/19
+ * @description 会话进入终态后自动移除，同一摄像头同时只能有一个会话
+ */
+public class RelayRegistry {
+    private final ConcurrentHashMap<String, RelaySession> sessions = new ConcurrentHashMap<>();
+    private final List<RelayStateListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 登记新会话
+     *
+     * @return 新会话；该摄像头已有会话时返回 null
+     */
+    public RelaySession register(String cameraId) {
+        RelaySession session = new RelaySession(cameraId, this::dispatch);
+        return sessions.putIfAbsent(cameraId, session) == null ? session : null;
+    }
+
+    public RelaySession get(String cameraId) {
+        return sessions.get(cameraId);
+    }
+
+    public Collection<RelaySession> sessions() {
+        return sessions.values();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public void addListener(RelayStateListener listener) {
+        listeners.add(listener);
+    }
+
+    private void dispatch(RelaySession session, RelayState from, RelayState to) {
+        if (to.isTerminal()) {
+            // 只移除本会话，避免误删同一摄像头随后登记的新会话
+            sessions.remove(session.getCameraId(), session);
+        }
+        for (RelayStateListener listener : listeners) {
+            listener.onTransition(session, from, to);
+        }
+    }
+}
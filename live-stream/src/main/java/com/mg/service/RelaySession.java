@@ -0,0 +1,105 @@
+package com.mg.service;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * packageName com.mg.service
+ * 单路推流会话：保存状态机与运行期信息
+ *
+ * @author mj
+ * @className RelaySession
+ * @date 2026/10/19
+ * @description 状态通过 CAS 迁移，非法迁移直接忽略
+ */
+public class RelaySession {
+    private final String cameraId;
+    private final AtomicReference<RelayState> state = new AtomicReference<>(RelayState.ALLOCATING);
+    private final AtomicBoolean released = new AtomicBoolean(false);
+    /**
+     * 推流任务开始执行或被停止抢先，二者只有一方能置位
+     */
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final RelayStateListener listener;
+    private volatile String channelKey;
+    private volatile Future<String> future;
+    private volatile String error;
+
+    RelaySession(String cameraId, RelayStateListener listener) {
+        this.cameraId = cameraId;
+        this.listener = listener;
+    }
+
+    /**
+     * 迁移状态
+     *
+     * @return 迁移成功返回 true；当前状态不允许迁移到 target 时返回 false
+     */
+    public boolean transit(RelayState target) {
+        while (true) {
+            RelayState current = state.get();
+            if (current == target) {
+                return false;
+            }
+            if (!current.canTransitTo(target)) {
+                return false;
+            }
+            if (state.compareAndSet(current, target)) {
+                listener.onTransition(this, current, target);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 以失败结束，记录原因
+     */
+    public boolean fail(String reason) {
+        this.error = reason;
+        return transit(RelayState.FAILED);
+    }
+
+    /**
+     * 标记并发名额已归还，只有第一次调用返回 true
+     */
+    boolean markReleased() {
+        return released.compareAndSet(false, true);
+    }
+
+    /**
+     * 抢占启动权：任务开始执行时调用，返回 false 表示已被停止；
+     * 停止时调用返回 true 表示任务尚未开始且之后不会再执行
+     */
+    boolean claimStart() {
+        return started.compareAndSet(false, true);
+    }
+
+    public String getCameraId() {
+        return cameraId;
+    }
+
+    public RelayState getState() {
+        return state.get();
+    }
+
+    public String getChannelKey() {
+        return channelKey;
+    }
+
+    void setChannelKey(String channelKey) {
+        this.channelKey = channelKey;
+    }
+
+    public Future<String> getFuture() {
+        return future;
+    }
+
+    void setFuture(Future<String> future) {
+        this.future = future;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
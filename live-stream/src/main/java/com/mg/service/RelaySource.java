@@ -0,0 +1,104 @@
+package com.mg.service;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+/**
+ * packageName com.mg.service
+ * 推流输入源抽象：不同协议各自设置低延迟拉流参数
+ *
+ * @author mj
+ * @className RelaySource
+ * @date 2026/10/19
+ * @description 支持 rtsp / file / udp(组播) / srt
+ */
+public interface RelaySource {
+
+    /**
+     * 拉流地址
+     */
+    String url();
+
+    /**
+     * 协议相关的 grabber 参数，在 grabber.start() 之前调用
+     */
+    void configure(FFmpegFrameGrabber grabber);
+
+    /**
+     * 读到结尾后是否从头循环（文件源压测用）
+     */
+    default boolean loop() {
+        return false;
+    }
+
+    /**
+     * 是否按帧时间戳实时节奏读取（文件源不做节流会以最快速度读完）
+     */
+    default boolean realTime() {
+        return false;
+    }
+
+    /**
+     * 根据地址协议创建输入源，不接受本地文件
+     */
+    static RelaySource of(String url) {
+        return of(url, null);
+    }
+
+    /**
+     * 根据地址协议创建输入源。地址可能来自客户端，本地文件只接受 file: 开头且位于 fileRoot 下的路径
+     * （相对路径按 fileRoot 解析，不允许 .. 与指向目录外的符号链接），没有协议头的地址一律拒绝
+     *
+     * @param fileRoot 允许读取的本地文件目录，为 null 时不接受文件源
+     */
+    static RelaySource of(String url, Path fileRoot) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("输入源地址不能为空");
+        }
+        String lower = url.toLowerCase();
+        if (lower.startsWith("rtsp://") || lower.startsWith("rtsps://")) {
+            return new RtspRelaySource(url);
+        }
+        if (lower.startsWith("udp://")) {
+            return new UdpRelaySource(url);
+        }
+        if (lower.startsWith("srt://")) {
+            return new SrtRelaySource(url);
+        }
+        if (lower.startsWith("file:")) {
+            return new FileRelaySource(resolveFile(url.substring("file:".length()).replaceFirst("^//", ""), fileRoot), true);
+        }
+        throw new IllegalArgumentException("不支持的输入源协议: " + url);
+    }
+
+    /**
+     * 校验并解析本地文件路径
+     *
+     * @return 文件的真实路径
+     */
+    private static String resolveFile(String path, Path fileRoot) {
+        if (fileRoot == null) {
+            throw new IllegalArgumentException("未开放本地文件输入源");
+        }
+        try {
+            Path candidate = Path.of(path);
+            for (Path part : candidate) {
+                if ("..".equals(part.toString())) {
+                    throw new IllegalArgumentException("文件路径不能包含 ..: " + path);
+                }
+            }
+            Path root = fileRoot.toRealPath();
+            // toRealPath 解析符号链接，链接指向目录外同样拒绝；文件不存在时抛出 IOException
+            Path real = root.resolve(candidate).toRealPath();
+            if (!real.startsWith(root)) {
+                throw new IllegalArgumentException("文件不在允许的目录下: " + path);
+            }
+            return real.toString();
+        } catch (InvalidPathException | IOException e) {
+            throw new IllegalArgumentException("文件不可用: " + path);
+        }
+    }
+}
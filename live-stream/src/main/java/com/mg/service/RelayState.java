@@ -0,0 +1,66 @@
+package com.mg.service;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * packageName com.mg.service
+ * 单路推流状态
+ *
+ * @author mj
+ * @className RelayState
+ * @date 2026/10/19
+ * @description FAILED / STOPPED 为终态，进入终态后从注册表移除
+ */
+public enum RelayState {
+    /**
+     * 已登记，正在分配通道与提交任务
+     */
+    ALLOCATING,
+    /**
+     * 正在连接输入源并探测流信息
+     */
+    PROBING,
+    /**
+     * 正常推流
+     */
+    STREAMING,
+    /**
+     * 输入源断开，正在重连
+     */
+    RECONNECTING,
+    /**
+     * 收到停止指令或通道失效，正在释放资源
+     */
+    DRAINING,
+    /**
+     * 异常结束
+     */
+    FAILED,
+    /**
+     * 正常结束
+     */
+    STOPPED;
+
+    /**
+     * 是否允许从当前状态迁移到 target
+     */
+    public boolean canTransitTo(RelayState target) {
+        return allowedTargets().contains(target);
+    }
+
+    public boolean isTerminal() {
+        return this == FAILED || this == STOPPED;
+    }
+
+    private Set<RelayState> allowedTargets() {
+        return switch (this) {
+            case ALLOCATING -> EnumSet.of(PROBING, DRAINING, FAILED);
+            case PROBING -> EnumSet.of(STREAMING, RECONNECTING, DRAINING, FAILED);
+            case STREAMING -> EnumSet.of(RECONNECTING, DRAINING, FAILED);
+            case RECONNECTING -> EnumSet.of(STREAMING, DRAINING, FAILED);
+            case DRAINING -> EnumSet.of(STOPPED, FAILED);
+            case FAILED, STOPPED -> EnumSet.noneOf(RelayState.class);
+        };
+    }
+}
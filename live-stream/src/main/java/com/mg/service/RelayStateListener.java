@@ -0,0 +1,16 @@
+package com.mg.service;
+
+/**
+ * packageName com.mg.service
+ * 推流状态变更监听
+ *
+ * @author mj
+ * @className RelayStateListener
+ * @date 2026/10/19
+ * @description 在发生迁移的线程上同步回调，实现方不能阻塞
+ */
+@FunctionalInterface
+public interface RelayStateListener {
+
+    void onTransition(RelaySession session, RelayState from, RelayState to);
+}
@@ -0,0 +1,82 @@
+package com.mg.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * packageName com.mg.service
+ * 推流状态推送：WebSocket 客户端订阅后，状态变化时主动推送，无需轮询 status
+ *
+ * @author mj
+ * @className RelayStatePublisher
+ * @date 2026/10/19
+ * @description 订阅 "*" 接收所有摄像头的状态；连接关闭后 ChannelGroup 自动移除
+ */
+public class RelayStatePublisher implements RelayStateListener {
+    public static final String ALL = "*";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ConcurrentHashMap<String, ChannelGroup> subscribers = new ConcurrentHashMap<>();
+
+    public void subscribe(String cameraId, Channel channel) {
+        subscribers.computeIfAbsent(key(cameraId), k -> new DefaultChannelGroup(GlobalEventExecutor.INSTANCE))
+                .add(channel);
+    }
+
+    public void unsubscribe(String cameraId, Channel channel) {
+        ChannelGroup group = subscribers.get(key(cameraId));
+        if (group != null) {
+            group.remove(channel);
+        }
+    }
+
+    @Override
+    public void onTransition(RelaySession session, RelayState from, RelayState to) {
+        ChannelGroup byCamera = subscribers.get(session.getCameraId());
+        ChannelGroup all = subscribers.get(ALL);
+        if ((byCamera == null || byCamera.isEmpty()) && (all == null || all.isEmpty())) {
+            return;
+        }
+        String text = stateJson(session, to);
+        if (byCamera != null) {
+            byCamera.writeAndFlush(new TextWebSocketFrame(text));
+        }
+        if (all != null) {
+            all.writeAndFlush(new TextWebSocketFrame(text));
+        }
+    }
+
+    private static String key(String cameraId) {
+        return cameraId == null || cameraId.isBlank() ? ALL : cameraId;
+    }
+
+    /**
+     * 状态推送消息，订阅时的当前状态与状态变化使用同一格式；字段值由 jackson 转义，错误信息中的引号、换行不会破坏 JSON
+     */
+    static String stateJson(RelaySession session, RelayState state) {
+        ObjectNode node = MAPPER.createObjectNode()
+                .put("event", "state")
+                .put("cameraId", session.getCameraId())
+                .put("state", state.name().toLowerCase());
+        if (session.getChannelKey() != null) {
+            node.put("channel", session.getChannelKey());
+        }
+        if (state == RelayState.FAILED && session.getError() != null) {
+            node.put("error", session.getError());
+        }
+        try {
+            return MAPPER.writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
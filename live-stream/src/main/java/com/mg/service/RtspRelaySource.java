@@ -0,0 +1,36 @@
+package com.mg.service;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+
+/**
+ * packageName com.mg.service
+ * RTSP 摄像头输入源
+ *
+ * @author mj
+ * @className RtspRelaySource
+ * @date 2026/10/19
+ * @description TCP 传输，关闭输入缓冲，缩短探测时间
+ */
+public class RtspRelaySource implements RelaySource {
+    private final String url;
+
+    public RtspRelaySource(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public String url() {
+        return url;
+    }
+
+    @Override
+    public void configure(FFmpegFrameGrabber grabber) {
+        grabber.setOption("rtsp_transport", "tcp");
+        // socket 超时（微秒），新版 ffmpeg 已移除 stimeout，统一使用 timeout
+        grabber.setOption("timeout", "2000000");
+        grabber.setOption("fflags", "nobuffer");
+        grabber.setOption("flags", "low_delay");
+        grabber.setOption("probesize", "32768");
+        grabber.setOption("analyzeduration", "500000");
+    }
+}
@@ -0,0 +1,45 @@
+package com.mg.service;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+
+/**
+ * packageName com.mg.service
+ * SRT 输入源
+ *
+ * @author mj
+ * @className SrtRelaySource
+ * @date 2026/10/19
+ * @description caller 模式，较小的接收延迟窗口
+ */
+public class SrtRelaySource implements RelaySource {
+    /**
+     * SRT 接收延迟（微秒），局域网 120ms 足够重传
+     */
+    private static final long LATENCY_MICROS = 120_000;
+
+    private final String url;
+
+    public SrtRelaySource(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public String url() {
+        return url;
+    }
+
+    @Override
+    public void configure(FFmpegFrameGrabber grabber) {
+        grabber.setFormat("mpegts");
+        grabber.setOption("mode", "caller");
+        grabber.setOption("latency", String.valueOf(LATENCY_MICROS));
+        grabber.setOption("transtype", "live");
+        // 连接超时（毫秒）与读超时（微秒）
+        grabber.setOption("connect_timeout", "2000");
+        grabber.setOption("rw_timeout", "2000000");
+        grabber.setOption("fflags", "nobuffer");
+        grabber.setOption("flags", "low_delay");
+        grabber.setOption("probesize", "65536");
+        grabber.setOption("analyzeduration", "500000");
+    }
+}
@@ -24,25 +24,31 @@ public class StreamRelayHandler extends SimpleChannelInboundHandler<TextWebSocke
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame msg) {
         String text = msg.text();
-        // 简单解析：例如 {"action":"start","cameraId":"cam1","rtsp":"rtsp://...","stream":"stream1"}
+        // 简单解析：例如 {"action":"start","cameraId":"cam1","source":"rtsp://...","stream":"stream1"}
+        // source 支持 rtsp:// udp:// srt://，以及开放了文件目录时该目录下的 file: 路径，兼容旧的 rtsp 字段
         Map<String, String> map = SimpleJson.parse(text);
         String action = map.get("action");
         String cameraId = map.get("cameraId");
 
         try {
             if ("start".equalsIgnoreCase(action)) {
-                String rtsp = map.get("rtsp");
+                String source = map.containsKey("source") ? map.get("source") : map.get("rtsp");
                 String stream = map.get("stream");
                 // 启动推流任务（异步）
-                manager.startRelay(cameraId, rtsp, stream).thenAccept(result -> {
+                manager.startRelay(cameraId, source, stream).thenAccept(result -> {
                     ctx.channel().writeAndFlush(new TextWebSocketFrame(result));
                 });
             } else if ("stop".equalsIgnoreCase(action)) {
-                manager.stopRelay(cameraId);
-                ctx.channel().writeAndFlush(new TextWebSocketFrame("stopped"));
+                boolean stopped = manager.stopRelay(cameraId);
+                ctx.channel().writeAndFlush(new TextWebSocketFrame(stopped ? "stopped" : "not found"));
             } else if ("status".equalsIgnoreCase(action)) {
                 String status = manager.status(cameraId);
                 ctx.channel().writeAndFlush(new TextWebSocketFrame(status));
+            } else if ("subscribe".equalsIgnoreCase(action)) {
+                // 订阅状态推送：cameraId 为空或 "*" 订阅全部
+                manager.subscribe(cameraId, ctx.channel());
+            } else if ("unsubscribe".equalsIgnoreCase(action)) {
+                manager.unsubscribe(cameraId, ctx.channel());
             } else {
                 ctx.channel().writeAndFlush(new TextWebSocketFrame("unknown action"));
             }
@@ -1,8 +1,15 @@
 package com.mg.service;
 
+import com.mg.redis.utils.ReactiveRedisUtil;
+import com.mg.redis.utils.RedisBatch;
 import com.mg.redis.utils.RedisUtil;
-import org.redisson.api.RBucket;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -16,19 +23,42 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class StreamRelayManager {
     private final ExecutorService relayExecutor;
-    private final ConcurrentHashMap<String, Future<String>> cameraTaskMap = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, String> cameraToChannel = new ConcurrentHashMap<>();
+    // 推流会话注册表，状态机驱动；会话进入终态后自动移除
+    private final RelayRegistry registry = new RelayRegistry();
+    // 状态变化推送给订阅的 WebSocket 客户端
+    private final RelayStatePublisher statePublisher = new RelayStatePublisher();
     private final int maxConcurrency;
     private final AtomicInteger currentCount = new AtomicInteger(0);
+    // 节点级编码线程预算，所有推流任务共享
+    private final EncoderBudget encoderBudget;
+    // 允许作为输入源的本地文件目录，为 null 时不接受文件源（输入源地址来自客户端）
+    private final Path fileSourceRoot;
 
     // 通道前缀与数量（示例）
     private final String channelPrefix = "live_ch"; // 实际使用请按项目调整
     private final String channelKeyPrefix = "camera:live_"; // redis key 前缀
-    private final int totalChannels = 16; // 总通道数
+    private final int totalChannels; // 总通道数，与最大并发一致
     private final long channelExpireSeconds = 60; // 通道过期时间
 
     public StreamRelayManager(int maxConcurrency) {
+        this(maxConcurrency, true);
+    }
+
+    /**
+     * @param encoderBudget 是否按节点预算限制编码线程数，关闭后每路使用 x264 默认线程数（仅用于压测对比）
+     */
+    public StreamRelayManager(int maxConcurrency, boolean encoderBudget) {
+        this(maxConcurrency, encoderBudget, null);
+    }
+
+    /**
+     * @param fileSourceRoot 允许作为输入源的本地文件目录（如压测素材目录），为 null 时只接受网络输入源
+     */
+    public StreamRelayManager(int maxConcurrency, boolean encoderBudget, Path fileSourceRoot) {
         this.maxConcurrency = maxConcurrency;
+        this.fileSourceRoot = fileSourceRoot;
+        this.encoderBudget = new EncoderBudget(Runtime.getRuntime().availableProcessors(), encoderBudget);
+        this.totalChannels = maxConcurrency;
         this.relayExecutor = Executors.newFixedThreadPool(maxConcurrency, new ThreadFactory() {
             private final AtomicInteger idx = new AtomicInteger(0);
 
@@ -39,39 +69,74 @@ public class StreamRelayManager {
                 return t;
             }
         });
+        registry.addListener(statePublisher);
+        // 进入终态时归还并发名额，每个会话只归还一次
+        registry.addListener((session, from, to) -> {
+            if (to.isTerminal() && session.markReleased()) {
+                currentCount.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 启动推流：输入源按地址协议自动识别，本地文件只接受 fileSourceRoot 下的 file: 地址
+     */
+    public CompletableFuture<String> startRelay(String cameraId, String sourceUrl, String streamName) {
+        return startRelay(cameraId, RelaySource.of(sourceUrl, fileSourceRoot), streamName);
     }
 
     /**
      * 启动推流：返回 CompletableFuture 在任务完成或失败时回调
      */
-    public CompletableFuture<String> startRelay(String cameraId, String rtspUrl, String streamName) {
+    public CompletableFuture<String> startRelay(String cameraId, RelaySource source, String streamName) {
         return CompletableFuture.supplyAsync(() -> {
+            // 同一摄像头只允许一个会话
+            RelaySession session = registry.register(cameraId);
+            if (session == null) {
+                throw new RuntimeException("摄像头已在推流: " + cameraId);
+            }
             // 防止超出并发数
             if (currentCount.incrementAndGet() > maxConcurrency) {
+                session.markReleased();
                 currentCount.decrementAndGet();
+                session.fail("超出最大并发推流数");
                 throw new RuntimeException("超出最大并发推流数");
             }
 
             try {
+                // 分配前已被停止：不再占用通道，避免覆盖同一摄像头后续会话的映射
+                if (session.getState().isTerminal()) {
+                    throw new RuntimeException("推流已停止: " + cameraId);
+                }
                 // 1) 原子分配通道（Redisson trySet）
                 String channelKey = allocateChannel(cameraId);
                 if (channelKey == null) {
                     throw new RuntimeException("没有可用通道");
                 }
+                session.setChannelKey(channelKey);
 
                 // 2) 生成 rtmp 地址（根据 channelKey 生成 stream 名称）
                 String rtmpUrl = "rtmp://127.0.0.1:1935/live/" + streamName; // 示例
 
-                // 3) 提交推流任务到线程池（返回 Future）
-                FFmpegRelayTask task = new FFmpegRelayTask(rtspUrl, rtmpUrl, channelKey, cameraId);
-                Future<String> f = relayExecutor.submit(task);
-                cameraTaskMap.put(cameraId, f);
-                cameraToChannel.put(cameraId, channelKey);
+                // 3) 提交推流任务到线程池，任务结束时将会话推进到终态
+                FFmpegRelayTask task = new FFmpegRelayTask(source, rtmpUrl, channelKey, session, encoderBudget);
+                session.setFuture(relayExecutor.submit(() -> {
+                    try {
+                        if (!session.claimStart()) {
+                            // 执行前已被停止：由这里释放通道
+                            releaseChannel(session);
+                            return "cancelled";
+                        }
+                        return task.call();
+                    } finally {
+                        session.transit(RelayState.STOPPED);
+                    }
+                }));
 
                 // 4) 等待短期结果返回（这里直接返回任务提交成功的提示）
                 return "started:" + channelKey + ", rtmp=" + rtmpUrl;
             } catch (Exception e) {
-                currentCount.decrementAndGet();
+                session.fail(e.getMessage());
                 throw new RuntimeException(e.getMessage(), e);
             }
         }, relayExecutor);
@@ -79,51 +144,92 @@ public class StreamRelayManager {
 
     /**
      * 停止推流任务
+     *
+     * @return 摄像头没有推流会话时返回 false
      */
-    public void stopRelay(String cameraId) {
-        Future<String> f = cameraTaskMap.remove(cameraId);
-        String channelKey = cameraToChannel.remove(cameraId);
-        if (f != null) {
-            f.cancel(true); // 尝试中断任务
+    public boolean stopRelay(String cameraId) {
+        RelaySession session = registry.get(cameraId);
+        if (session == null) {
+            return false;
+        }
+        session.transit(RelayState.DRAINING);
+        Future<String> f = session.getFuture();
+        if (session.claimStart()) {
+            // 任务尚未开始，之后也不会再执行：在这里释放通道并推进到终态
+            if (f != null) {
+                f.cancel(false);
+            }
+            releaseChannel(session);
+            session.transit(RelayState.STOPPED);
+        } else if (f != null) {
+            // 任务运行中：只中断，由任务自身退出时清理通道并推进 DRAINING -> STOPPED，
+            // 保证并发名额在旧任务真正结束后才归还
+            f.cancel(true);
         }
-        // 清理 Redis 键
-        if (channelKey != null) {
-            RedisUtil.deleteObject(channelKey);
-            RedisUtil.deleteObject("camera:map:" + cameraId);
+        return true;
+    }
 
+    /**
+     * 释放会话占用的通道：只删除仍属于本会话的 key，不影响同一摄像头随后的新会话。
+     * 可能在 websocket 事件循环中调用，异步执行；失败时键仍会按有效期过期
+     */
+    private void releaseChannel(RelaySession session) {
+        String channelKey = session.getChannelKey();
+        if (channelKey == null) {
+            return;
         }
-        currentCount.decrementAndGet();
+        ReactiveRedisUtil.deleteObjectIfEquals("camera:map:" + session.getCameraId(), channelKey)
+                .then(ReactiveRedisUtil.deleteObjectIfEquals(channelKey, session.getCameraId()))
+                .subscribe(null, Throwable::printStackTrace);
     }
 
     /**
      * 查询任务状态
      */
     public String status(String cameraId) {
-        Future<String> f = cameraTaskMap.get(cameraId);
-        if (f == null) return "stopped";
-        if (f.isCancelled()) return "cancelled";
-        if (f.isDone()) {
-            try {
-                return "done:" + f.get();
-            } catch (Exception e) {
-                return "done:error:" + e.getMessage();
+        RelaySession session = registry.get(cameraId);
+        return session == null ? "stopped" : session.getState().name().toLowerCase();
+    }
+
+    /**
+     * 订阅状态推送，cameraId 为空或 "*" 时订阅所有摄像头
+     */
+    public void subscribe(String cameraId, Channel channel) {
+        statePublisher.subscribe(cameraId, channel);
+        // 订阅后立即推送一次当前状态，客户端无需再查询
+        for (RelaySession session : registry.sessions()) {
+            if (cameraId == null || cameraId.isBlank() || RelayStatePublisher.ALL.equals(cameraId)
+                    || cameraId.equals(session.getCameraId())) {
+                channel.writeAndFlush(new TextWebSocketFrame(RelayStatePublisher.stateJson(session, session.getState())));
             }
         }
-        return "running";
+    }
+
+    public void unsubscribe(String cameraId, Channel channel) {
+        statePublisher.unsubscribe(cameraId, channel);
     }
 
     /**
      * 原子分配通道（尝试使用 Redisson RBucket.trySet）
      */
     private String allocateChannel(String cameraId) {
+        // 一次管道查出全部通道的占用情况，只对空闲通道尝试占用，避免逐个通道往返
+        RedisBatch probe = RedisUtil.batch();
+        List<RedisBatch.Result<Boolean>> occupied = new ArrayList<>(totalChannels);
+        for (int i = 1; i <= totalChannels; i++) {
+            occupied.add(probe.exists(channelKeyPrefix + i)); // eg: camera:live_1
+        }
+        probe.execute();
+        Duration expire = Duration.ofSeconds(channelExpireSeconds);
         for (int i = 1; i <= totalChannels; i++) {
-            String channelKey = channelKeyPrefix + i; // eg: camera:live_1
-            RBucket<String> bucket = RedisUtil.getCacheObject(channelKey);
-            boolean ok = bucket.trySet(cameraId, channelExpireSeconds, TimeUnit.SECONDS);
-            if (ok) {
+            if (occupied.get(i - 1).get()) {
+                continue;
+            }
+            String channelKey = channelKeyPrefix + i;
+            // 探测与占用之间可能被其它节点抢先，仍以 SET NX 结果为准
+            if (RedisUtil.setObjectIfAbsent(channelKey, cameraId, expire)) {
                 // 写反向映射，便于根据 cameraId 快速释放
-                RBucket<String> bucket1 = RedisUtil.getCacheObject("camera:map:" + cameraId);
-                bucket1.set(channelKey, channelExpireSeconds, TimeUnit.SECONDS);
+                RedisUtil.setCacheObject("camera:map:" + cameraId, channelKey, expire);
                 return channelKey;
             }
         }
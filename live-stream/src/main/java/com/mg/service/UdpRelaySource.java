@@ -0,0 +1,41 @@
+package com.mg.service;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+
+/**
+ * packageName com.mg.service
+ * UDP / 组播 输入源（编码器推送的 mpegts）
+ *
+ * @author mj
+ * @className UdpRelaySource
+ * @date 2026/10/19
+ * @description 加大接收缓冲、允许 fifo 溢出丢包而不中断
+ */
+public class UdpRelaySource implements RelaySource {
+    private final String url;
+
+    public UdpRelaySource(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public String url() {
+        return url;
+    }
+
+    @Override
+    public void configure(FFmpegFrameGrabber grabber) {
+        grabber.setFormat("mpegts");
+        // 多路组播共用端口时需要地址复用
+        grabber.setOption("reuse", "1");
+        grabber.setOption("buffer_size", String.valueOf(4 * 1024 * 1024));
+        grabber.setOption("fifo_size", "1000000");
+        grabber.setOption("overrun_nonfatal", "1");
+        // 读超时（微秒），避免编码器停止推送后 grab 永久阻塞
+        grabber.setOption("timeout", "2000000");
+        grabber.setOption("fflags", "nobuffer");
+        grabber.setOption("flags", "low_delay");
+        grabber.setOption("probesize", "65536");
+        grabber.setOption("analyzeduration", "500000");
+    }
+}
@@ -0,0 +1,133 @@
+package com.mg.benchmark;
+
+import com.mg.redis.codec.RedisCodecRegistry;
+import com.mg.redis.codec.RedisCodecType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redisson.client.codec.Codec;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * packageName com.mg.benchmark
+ * redis 值编码的体积与吞吐对比
+ * <p>
+ * JSON + 阈值 0 即原先的 TypedJsonJacksonCodec 配置，作为基线；其余组合为 SMILE/CBOR 与 lz4 压缩。
+ * 编码后的字节数在每组参数开始时输出（JMH 本身不统计体积）。
+ * <p>
+ * 运行（在 live-stream 目录下）：
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main CodecBenchmark"
+ *
+ * @author mj
+ * @className CodecBenchmark
+ * @date 2026/10/19
+ * @description 样本为一条推流状态记录，含 32 个分片统计，模拟类型信息中重复出现的类名
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public RedisCodecType type;
+
+    @Param({"0", "512"})
+    public int compressThreshold;
+
+    private Codec codec;
+    private RelayRecord value;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        codec = new RedisCodecRegistry(type, Map.of(), compressThreshold).defaultCodec();
+        value = RelayRecord.sample();
+        ByteBuf buf = codec.getValueEncoder().encode(value);
+        try {
+            encoded = ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+        System.out.printf("%n%s 压缩阈值 %d：编码后 %d 字节%n", type, compressThreshold, encoded.length);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        ByteBuf buf = codec.getValueEncoder().encode(value);
+        try {
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return codec.getValueDecoder().decode(Unpooled.wrappedBuffer(encoded), null);
+    }
+
+    /**
+     * 推流状态记录，非 final 以带上类型信息
+     */
+    public static class RelayRecord {
+        private String cameraId;
+        private String channelKey;
+        private String rtmpUrl;
+        private String state;
+        private LocalDateTime startedAt;
+        private Map<String, Long> counters;
+        private List<Segment> segments;
+
+        static RelayRecord sample() {
+            RelayRecord record = new RelayRecord();
+            record.cameraId = "camera-0001";
+            record.channelKey = "live:channel:7";
+            record.rtmpUrl = "rtmp://127.0.0.1:1935/live/channel-7";
+            record.state = "RUNNING";
+            record.startedAt = LocalDateTime.of(2026, 10, 19, 8, 0);
+            record.counters = new LinkedHashMap<>();
+            record.counters.put("frames", 1_234_567L);
+            record.counters.put("dropped", 12L);
+            record.counters.put("bytes", 987_654_321L);
+            record.segments = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                Segment segment = new Segment();
+                segment.seq = i;
+                segment.pts = i * 2_000L;
+                segment.bytes = 180_000 + i * 37;
+                segment.keyFrame = i % 2 == 0;
+                record.segments.add(segment);
+            }
+            return record;
+        }
+    }
+
+    public static class Segment {
+        private int seq;
+        private long pts;
+        private int bytes;
+        private boolean keyFrame;
+    }
+}
@@ -0,0 +1,74 @@
+package com.mg.benchmark;
+
+import com.mg.redis.handler.KeyPrefixHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * packageName com.mg.benchmark
+ * redis key 前缀映射的耗时与分配对比
+ * <p>
+ * fixedNames=false 即不配置固定名称、每次拼接的基线；true 时配置下面的固定名称。
+ * fixed 为命中固定名称，dynamic 为按 id 拼出的名称（不命中，衡量多一次查表的开销）。
+ * 分配量用 -prof gc 查看（gc.alloc.rate.norm）。
+ * <p>
+ * 运行（在 live-stream 目录下）：
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main KeyPrefixBenchmark -prof gc"
+ *
+ * @author mj
+ * @className KeyPrefixBenchmark
+ * @date 2026/10/19
+ * @description 固定名称取项目中实际使用的通道名与 key；动态名称预先生成，不把拼 id 的开销算进去
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyPrefixBenchmark {
+    private static final List<String> FIXED_NAMES = List.of("sse:presence", "sse:all", "near-cache:invalidate",
+            "rate_limit:v2:sliding_window:login", "sse:presence:sweep");
+    private static final int DYNAMIC_NAMES = 1024;
+
+    @Param({"false", "true"})
+    public boolean fixedNames;
+
+    private KeyPrefixHandler handler;
+    private String[] fixed;
+    private String[] dynamic;
+    private int index;
+
+    @Setup
+    public void setup() {
+        handler = new KeyPrefixHandler("live", fixedNames ? FIXED_NAMES : List.of());
+        fixed = FIXED_NAMES.toArray(new String[0]);
+        dynamic = new String[DYNAMIC_NAMES];
+        for (int i = 0; i < DYNAMIC_NAMES; i++) {
+            dynamic[i] = "camera:map:" + (100_000 + i);
+        }
+    }
+
+    @Benchmark
+    public String fixed() {
+        return handler.map(fixed[index++ % fixed.length]);
+    }
+
+    @Benchmark
+    public String dynamic() {
+        return handler.map(dynamic[index++ & (DYNAMIC_NAMES - 1)]);
+    }
+}
@@ -0,0 +1,105 @@
+package com.mg.loadtest;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolHandler;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.net.URI;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * packageName com.mg.loadtest
+ * 推流控制 WebSocket 客户端，与业务方走同一套控制协议
+ *
+ * @author mj
+ * @className ControlClient
+ * @date 2026/10/19
+ * @description 收到的文本消息放入队列，由调用方按需读取
+ */
+public class ControlClient implements AutoCloseable {
+    private final EventLoopGroup group = new NioEventLoopGroup(1, new DefaultThreadFactory("loadtest-ws"));
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+    private final Channel channel;
+
+    public ControlClient(String wsUrl) throws Exception {
+        URI uri = URI.create(wsUrl);
+        CompletableFuture<Void> handshake = new CompletableFuture<>();
+        Bootstrap b = new Bootstrap();
+        b.group(group)
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec());
+                        ch.pipeline().addLast(new HttpObjectAggregator(65536));
+                        ch.pipeline().addLast(new WebSocketClientProtocolHandler(WebSocketClientHandshakerFactory.newHandshaker(
+                                uri, WebSocketVersion.V13, null, false, EmptyHttpHeaders.INSTANCE)));
+                        ch.pipeline().addLast(new SimpleChannelInboundHandler<TextWebSocketFrame>() {
+                            @Override
+                            public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+                                if (evt == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_COMPLETE) {
+                                    handshake.complete(null);
+                                }
+                                super.userEventTriggered(ctx, evt);
+                            }
+
+                            @Override
+                            protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame msg) {
+                                replies.offer(msg.text());
+                            }
+                        });
+                    }
+                });
+        channel = b.connect(uri.getHost(), uri.getPort()).sync().channel();
+        handshake.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 发送 start 指令
+     */
+    public void start(String cameraId, String source, String stream) {
+        send("{\"action\":\"start\",\"cameraId\":\"" + cameraId + "\",\"source\":\"" + source
+                + "\",\"stream\":\"" + stream + "\"}");
+    }
+
+    /**
+     * 发送 stop 指令
+     */
+    public void stop(String cameraId) {
+        send("{\"action\":\"stop\",\"cameraId\":\"" + cameraId + "\"}");
+    }
+
+    /**
+     * 等待下一条回复，超时返回 null
+     */
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return replies.poll(timeout, unit);
+    }
+
+    private void send(String text) {
+        channel.writeAndFlush(new TextWebSocketFrame(text));
+    }
+
+    @Override
+    public void close() {
+        channel.close().awaitUninterruptibly();
+        group.shutdownGracefully();
+    }
+}
@@ -0,0 +1,75 @@
+package com.mg.loadtest;
+
+import org.bytedeco.javacv.Frame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * packageName com.mg.loadtest
+ * 在画面左上角以黑白方块编码毫秒时间戳，用于测量端到端延迟
+ *
+ * @author mj
+ * @className FrameStamp
+ * @date 2026/10/19
+ * @description 48 位时间戳，2 行 x 24 块，每块 16x16 像素，能扛住 x264 crf 28 的有损压缩
+ */
+public final class FrameStamp {
+    private static final int BITS = 48;
+    private static final int BITS_PER_ROW = 24;
+    private static final int BLOCK = 16;
+
+    /**
+     * 编码区域所需的最小宽高
+     */
+    public static final int MIN_WIDTH = BITS_PER_ROW * BLOCK;
+    public static final int MIN_HEIGHT = (BITS / BITS_PER_ROW) * BLOCK;
+
+    private FrameStamp() {
+    }
+
+    /**
+     * 写入时间戳（BGR24 图像）
+     */
+    public static void write(Frame frame, long millis) {
+        ByteBuffer buf = (ByteBuffer) frame.image[0];
+        int stride = frame.imageStride;
+        for (int bit = 0; bit < BITS; bit++) {
+            byte value = ((millis >>> bit) & 1L) == 1L ? (byte) 0xFF : 0;
+            int x0 = (bit % BITS_PER_ROW) * BLOCK;
+            int y0 = (bit / BITS_PER_ROW) * BLOCK;
+            for (int y = y0; y < y0 + BLOCK; y++) {
+                int row = y * stride;
+                for (int x = x0; x < x0 + BLOCK; x++) {
+                    int i = row + x * 3;
+                    buf.put(i, value);
+                    buf.put(i + 1, value);
+                    buf.put(i + 2, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取时间戳（BGR24 图像），取每块中心像素的亮度判断 0/1
+     *
+     * @return 毫秒时间戳，画面尺寸不足时返回 -1
+     */
+    public static long read(Frame frame) {
+        if (frame.image == null || frame.imageWidth < MIN_WIDTH || frame.imageHeight < MIN_HEIGHT) {
+            return -1;
+        }
+        ByteBuffer buf = (ByteBuffer) frame.image[0];
+        int stride = frame.imageStride;
+        long millis = 0;
+        for (int bit = 0; bit < BITS; bit++) {
+            int x = (bit % BITS_PER_ROW) * BLOCK + BLOCK / 2;
+            int y = (bit / BITS_PER_ROW) * BLOCK + BLOCK / 2;
+            int i = y * stride + x * 3;
+            int luma = ((buf.get(i) & 0xFF) + (buf.get(i + 1) & 0xFF) + (buf.get(i + 2) & 0xFF)) / 3;
+            if (luma > 128) {
+                millis |= 1L << bit;
+            }
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,75 @@
+package com.mg.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * packageName com.mg.loadtest
+ * 读取 /proc 下的进程资源信息（仅 Linux）
+ *
+ * @author mj
+ * @className ProcStats
+ * @date 2026/10/19
+ * @description 按线程名统计 CPU：x264 等原生线程继承创建者线程名，因此 relay-exec 前缀即推流占用
+ */
+public final class ProcStats {
+    /**
+     * /proc 中 CPU 时间的单位（USER_HZ），Linux 上固定为 100
+     */
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+    private ProcStats() {
+    }
+
+    /**
+     * 名称以 prefix 开头的线程累计 CPU 时间（毫秒），无法读取时返回 -1
+     */
+    public static long threadCpuMillis(String prefix) {
+        Path tasks = Path.of("/proc/self/task");
+        if (!Files.isDirectory(tasks)) {
+            return -1;
+        }
+        long ticks = 0;
+        try (Stream<Path> list = Files.list(tasks)) {
+            for (Path task : (Iterable<Path>) list::iterator) {
+                String stat;
+                try {
+                    stat = Files.readString(task.resolve("stat"));
+                } catch (IOException e) {
+                    // 线程已退出
+                    continue;
+                }
+                int open = stat.indexOf('(');
+                int close = stat.lastIndexOf(')');
+                if (open < 0 || close < 0 || !stat.substring(open + 1, close).startsWith(prefix)) {
+                    continue;
+                }
+                // comm 之后依次为 state(3) ... utime(14) stime(15)
+                String[] fields = stat.substring(close + 2).split(" ");
+                ticks += Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+        return ticks * 1000 / CLOCK_TICKS_PER_SECOND;
+    }
+
+    /**
+     * 进程常驻内存（KB），包含 ffmpeg 的原生内存，无法读取时返回 -1
+     */
+    public static long rssKb() {
+        try {
+            List<String> lines = Files.readAllLines(Path.of("/proc/self/status"));
+            for (String line : lines) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException ignored) {
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,130 @@
+package com.mg.loadtest;
+
+import com.mg.redis.utils.RedisBatch;
+import com.mg.redis.utils.RedisUtil;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * packageName com.mg.loadtest
+ * redis 批量操作压测：N 个 get/set 逐条调用与 RedisBatch 一次管道发送的耗时对比
+ * <p>
+ * 先测单条 get 的中位耗时作为一次往返（RTT），再对每个 N 分别测逐条 set、逐条 get、批量 set、批量 get，
+ * 每组重复 loadtest.rounds 次取中位数，输出耗时及折合的往返次数。本机 redis 的 RTT 很小，
+ * 差距主要体现在跨机房或容器网络上，可用 loadtest.redis.address 指向实际部署的 redis。
+ * <p>
+ * 运行（在 live-stream 目录下）：
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.mg.loadtest.RedisBatchLoadTest
+ * -Dloadtest.redis.address=redis://10.0.0.5:6379 -Dloadtest.tag=$(git rev-parse --short HEAD)
+ * <p>
+ * 结果写入 batch-{tag}.csv。
+ *
+ * @author mj
+ * @className RedisBatchLoadTest
+ * @date 2026/10/19
+ * @description 使用独立 database（默认 15），key 带 loadtest:batch: 前缀，结束时删除
+ */
+public class RedisBatchLoadTest {
+    private static final String KEY_PREFIX = "loadtest:batch:";
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    public static void main(String[] args) throws Exception {
+        int rounds = Integer.getInteger("loadtest.rounds", 20);
+        int[] sizes = Arrays.stream(System.getProperty("loadtest.sizes", "1,10,100,1000").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+        String tag = System.getProperty("loadtest.tag", "local");
+
+        Config config = new Config();
+        config.useSingleServer()
+                .setAddress(System.getProperty("loadtest.redis.address", "redis://127.0.0.1:6379"))
+                .setPassword(System.getProperty("loadtest.redis.password"))
+                .setDatabase(Integer.getInteger("loadtest.redis.database", 15));
+        RedissonClient redisson = Redisson.create(config);
+        new RedisUtil(redisson, redisson.reactive());
+
+        int maxSize = Arrays.stream(sizes).max().orElse(1);
+        List<String> keys = new ArrayList<>(maxSize);
+        for (int i = 0; i < maxSize; i++) {
+            keys.add(KEY_PREFIX + i);
+        }
+        Path out = Path.of("batch-" + tag + ".csv");
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+            // 预热连接与编码器
+            for (int i = 0; i < 200; i++) {
+                RedisUtil.setCacheObject(keys.get(0), "warmup", TTL);
+                RedisUtil.getCacheObject(keys.get(0));
+            }
+            double rttMillis = median(rounds * 10, () -> RedisUtil.getCacheObject(keys.get(0)));
+            System.out.printf(Locale.ROOT, "单条 get 中位耗时（RTT）%.3fms%n", rttMillis);
+
+            csv.println("n,mode,op,median_ms,per_key_us,rtt_equivalent");
+            for (int n : sizes) {
+                List<String> batchKeys = keys.subList(0, n);
+                record(csv, n, "per_call", "set", rttMillis, median(rounds, () -> {
+                    for (String key : batchKeys) {
+                        RedisUtil.setCacheObject(key, key, TTL);
+                    }
+                }));
+                record(csv, n, "per_call", "get", rttMillis, median(rounds, () -> {
+                    for (String key : batchKeys) {
+                        RedisUtil.getCacheObject(key);
+                    }
+                }));
+                record(csv, n, "batch", "set", rttMillis, median(rounds, () -> {
+                    RedisBatch batch = RedisUtil.batch();
+                    for (String key : batchKeys) {
+                        batch.set(key, key, TTL);
+                    }
+                    batch.execute();
+                }));
+                record(csv, n, "batch", "get", rttMillis, median(rounds, () -> {
+                    RedisBatch batch = RedisUtil.batch();
+                    List<RedisBatch.Result<String>> results = new ArrayList<>(n);
+                    for (String key : batchKeys) {
+                        results.add(batch.get(key));
+                    }
+                    batch.execute();
+                    results.forEach(RedisBatch.Result::get);
+                }));
+                csv.flush();
+            }
+        } finally {
+            RedisUtil.deleteObject(keys);
+            redisson.shutdown();
+        }
+        System.out.println("结果已写入 " + out.toAbsolutePath());
+    }
+
+    private static void record(PrintWriter csv, int n, String mode, String op, double rttMillis, double millis) {
+        double perKeyMicros = millis * 1000 / n;
+        double rtts = rttMillis > 0 ? millis / rttMillis : -1;
+        csv.println(String.format(Locale.ROOT, "%d,%s,%s,%.3f,%.2f,%.1f", n, mode, op, millis, perKeyMicros, rtts));
+        System.out.printf(Locale.ROOT, "n=%d %s %s %.3fms (%.2fus/key, %.1f RTT)%n",
+                n, mode, op, millis, perKeyMicros, rtts);
+    }
+
+    /**
+     * 重复执行 rounds 次，返回耗时中位数（毫秒）
+     */
+    private static double median(int rounds, Runnable task) {
+        long[] nanos = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            task.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[rounds / 2] / 1_000_000.0;
+    }
+}
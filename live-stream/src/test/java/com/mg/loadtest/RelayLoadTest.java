@@ -0,0 +1,172 @@
+package com.mg.loadtest;
+
+import com.mg.redis.utils.RedisUtil;
+import com.mg.service.StreamRelayManager;
+import com.mg.service.StreamRelayServer;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * packageName com.mg.loadtest
+ * 推流容量压测：逐步增加合成摄像头路数，输出每个路数下的帧率、延迟、CPU 与内存
+ * <p>
+ * 链路：SyntheticCamera -(udp mpegts)-> StreamRelayManager -(rtmp)-> nginx-rtmp -(rtmp)-> SinkProbe
+ * 控制指令通过 WebSocket 发给进程内的 StreamRelayServer，与线上走同一套协议。
+ * 需要本机 nginx-rtmp（见 resources/nginx.conf）和一个 Redis（建议单独的 database）。
+ * <p>
+ * 压测代码只在测试源码中，不会打进发布的 jar。运行（在 live-stream 目录下）：
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.mg.loadtest.RelayLoadTest
+ * -Dloadtest.max=32 -Dloadtest.tag=$(git rev-parse --short HEAD)
+ * <p>
+ * -Dloadtest.budget=false 关闭编码线程预算（每路使用 x264 默认线程数），换一个 tag 再跑一次即可对比预算的效果。
+ * <p>
+ * 结果写入 capacity-{tag}.csv，同一台机器上按提交对比即可得到容量曲线。
+ *
+ * @author mj
+ * @className RelayLoadTest
+ * @date 2026/10/19
+ * @description CPU 只统计 relay-exec 线程（含其创建的 x264 原生线程）；内存为进程 RSS 增量，含合成源与接收端
+ */
+public class RelayLoadTest {
+    private static final String CAMERA_PREFIX = "loadtest-cam-";
+
+    private record LoadStream(String cameraId, SyntheticCamera camera, SinkProbe probe) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int start = Integer.getInteger("loadtest.start", 1);
+        int step = Integer.getInteger("loadtest.step", 2);
+        int max = Integer.getInteger("loadtest.max", 16);
+        long warmupSeconds = Long.getLong("loadtest.warmup", 10L);
+        long holdSeconds = Long.getLong("loadtest.hold", 30L);
+        int fps = Integer.getInteger("loadtest.fps", 25);
+        int width = Integer.getInteger("loadtest.width", 640);
+        int height = Integer.getInteger("loadtest.height", 360);
+        int wsPort = Integer.getInteger("loadtest.wsPort", 18080);
+        int udpBasePort = Integer.getInteger("loadtest.udpBasePort", 20000);
+        String rtmpBase = System.getProperty("loadtest.rtmp", "rtmp://127.0.0.1:1935/live/");
+        String tag = System.getProperty("loadtest.tag", "local");
+        boolean budget = Boolean.parseBoolean(System.getProperty("loadtest.budget", "true"));
+
+        Config config = new Config();
+        config.useSingleServer()
+                .setAddress(System.getProperty("loadtest.redis.address", "redis://127.0.0.1:6379"))
+                .setPassword(System.getProperty("loadtest.redis.password"))
+                .setDatabase(Integer.getInteger("loadtest.redis.database", 15));
+        RedissonClient redisson = Redisson.create(config);
+        new RedisUtil(redisson, redisson.reactive());
+
+        StreamRelayManager manager = new StreamRelayManager(max, budget);
+        StreamRelayServer server = new StreamRelayServer(wsPort, manager);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "loadtest-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        List<LoadStream> streams = new ArrayList<>();
+        Path out = Path.of("capacity-" + tag + ".csv");
+        long baselineRssKb = ProcStats.rssKb();
+        try (ControlClient control = connect("ws://127.0.0.1:" + wsPort + "/ws");
+             PrintWriter csv = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+            csv.println("streams,stream,fps,latency_p50_ms,latency_p95_ms,cpu_pct_per_stream,rss_mb_per_stream");
+            for (int n = start; n <= max; n += step) {
+                while (streams.size() < n) {
+                    streams.add(startStream(control, streams.size(), udpBasePort, rtmpBase, width, height, fps));
+                }
+                TimeUnit.SECONDS.sleep(warmupSeconds);
+
+                streams.forEach(s -> s.probe().reset());
+                long cpuStart = ProcStats.threadCpuMillis("relay-exec");
+                long windowStart = System.nanoTime();
+                TimeUnit.SECONDS.sleep(holdSeconds);
+                long cpuEnd = ProcStats.threadCpuMillis("relay-exec");
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - windowStart);
+                long rssKb = ProcStats.rssKb();
+
+                double cpuPerStream = cpuStart < 0 ? -1 : (cpuEnd - cpuStart) * 100.0 / elapsedMillis / n;
+                double rssPerStreamMb = rssKb < 0 ? -1 : (rssKb - baselineRssKb) / 1024.0 / n;
+                double fpsSum = 0;
+                double fpsMin = Double.MAX_VALUE;
+                double worstP95 = 0;
+                for (LoadStream s : streams) {
+                    SinkProbe.Snapshot snap = s.probe().snapshot();
+                    fpsSum += snap.fps();
+                    fpsMin = Math.min(fpsMin, snap.fps());
+                    worstP95 = Math.max(worstP95, snap.p95Millis());
+                    csv.println(String.format(Locale.ROOT, "%d,%s,%.2f,%.0f,%.0f,%.1f,%.1f",
+                            n, s.cameraId(), snap.fps(), snap.p50Millis(), snap.p95Millis(), cpuPerStream, rssPerStreamMb));
+                }
+                csv.flush();
+                System.out.printf(Locale.ROOT, "streams=%d fps(avg/min)=%.1f/%.1f latency_p95(max)=%.0fms cpu/stream=%.1f%% rss/stream=%.1fMB%n",
+                        n, fpsSum / n, fpsMin, worstP95, cpuPerStream, rssPerStreamMb);
+            }
+            for (LoadStream s : streams) {
+                control.stop(s.cameraId());
+                s.camera().stop();
+                s.probe().stop();
+            }
+        } finally {
+            server.stop();
+            redisson.shutdown();
+        }
+        System.out.println("结果已写入 " + out.toAbsolutePath());
+        // 推流线程为非守护线程，压测结束直接退出
+        System.exit(0);
+    }
+
+    private static LoadStream startStream(ControlClient control, int index, int udpBasePort, String rtmpBase,
+                                          int width, int height, int fps) throws InterruptedException {
+        String cameraId = CAMERA_PREFIX + index;
+        String stream = "loadtest-" + index;
+        // 端口间隔 2，避开 mpegts 相邻端口的 RTCP 习惯占用
+        int port = udpBasePort + index * 2;
+
+        SyntheticCamera camera = new SyntheticCamera(port, width, height, fps);
+        Thread cameraThread = new Thread(camera, cameraId);
+        cameraThread.setDaemon(true);
+        cameraThread.start();
+
+        control.start(cameraId, "udp://127.0.0.1:" + port, stream);
+        String reply = control.poll(5, TimeUnit.SECONDS);
+        if (reply == null || !reply.startsWith("started")) {
+            System.err.println(cameraId + " 启动推流失败: " + reply);
+        }
+
+        SinkProbe probe = new SinkProbe(rtmpBase + stream);
+        Thread probeThread = new Thread(probe, "loadtest-sink-" + index);
+        probeThread.setDaemon(true);
+        probeThread.start();
+        return new LoadStream(cameraId, camera, probe);
+    }
+
+    /**
+     * 控制服务在后台线程启动，连接失败时重试
+     */
+    private static ControlClient connect(String wsUrl) throws Exception {
+        Exception last = null;
+        for (int i = 0; i < 20; i++) {
+            try {
+                return new ControlClient(wsUrl);
+            } catch (Exception e) {
+                last = e;
+                TimeUnit.MILLISECONDS.sleep(250);
+            }
+        }
+        throw last;
+    }
+}
@@ -0,0 +1,125 @@
+package com.mg.loadtest;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * packageName com.mg.loadtest
+ * 本地接收端：从 RTMP 拉取推流结果，统计帧率并解析画面时间戳计算端到端延迟
+ *
+ * @author mj
+ * @className SinkProbe
+ * @date 2026/10/19
+ * @description 每个采样窗口开始时 reset，结束时读取 snapshot
+ */
+public class SinkProbe implements Runnable {
+    /**
+     * 单个窗口最多保留的延迟样本数，超出后覆盖最早的样本
+     */
+    private static final int MAX_SAMPLES = 8192;
+
+    private final String rtmpUrl;
+    private volatile boolean running = true;
+
+    private final long[] latencies = new long[MAX_SAMPLES];
+    private int sampleCount;
+    private long frames;
+    private long windowStartNanos = System.nanoTime();
+
+    public SinkProbe(String rtmpUrl) {
+        this.rtmpUrl = rtmpUrl;
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * 开始新的采样窗口
+     */
+    public synchronized void reset() {
+        sampleCount = 0;
+        frames = 0;
+        windowStartNanos = System.nanoTime();
+    }
+
+    /**
+     * 当前窗口统计：帧率与延迟分位数
+     */
+    public synchronized Snapshot snapshot() {
+        double seconds = Math.max(1e-3, (System.nanoTime() - windowStartNanos) / 1e9);
+        int n = Math.min(sampleCount, MAX_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, n);
+        Arrays.sort(sorted);
+        return new Snapshot(frames / seconds, percentile(sorted, 0.5), percentile(sorted, 0.95));
+    }
+
+    private synchronized void onFrame(long latencyMillis) {
+        frames++;
+        if (latencyMillis >= 0) {
+            latencies[sampleCount % MAX_SAMPLES] = latencyMillis;
+            sampleCount++;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(rtmpUrl);
+            grabber.setOption("fflags", "nobuffer");
+            grabber.setOption("flags", "low_delay");
+            grabber.setOption("rw_timeout", "3000000");
+            try {
+                grabber.start();
+                while (running) {
+                    Frame frame = grabber.grabImage();
+                    if (frame == null) {
+                        break;
+                    }
+                    long stamp = FrameStamp.read(frame);
+                    long latency = stamp > 0 ? System.currentTimeMillis() - stamp : -1;
+                    // 解码错位等导致的异常值不计入延迟样本
+                    onFrame(latency >= 0 && latency < TimeUnit.MINUTES.toMillis(1) ? latency : -1);
+                }
+            } catch (Exception e) {
+                // 推流尚未开始或中断，稍后重连
+                sleepQuietly();
+            } finally {
+                try {
+                    grabber.stop();
+                    grabber.release();
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return -1;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)));
+        return sorted[index];
+    }
+
+    /**
+     * 采样窗口统计结果
+     *
+     * @param fps       实际输出帧率
+     * @param p50Millis 延迟中位数（毫秒）
+     * @param p95Millis 延迟 P95（毫秒）
+     */
+    public record Snapshot(double fps, double p50Millis, double p95Millis) {
+    }
+}
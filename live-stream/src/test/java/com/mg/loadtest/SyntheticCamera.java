@@ -0,0 +1,110 @@
+package com.mg.loadtest;
+
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.Frame;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * packageName com.mg.loadtest
+ * 合成摄像头：生成带时间戳的运动画面，以 mpegts 推到本机 UDP 端口
+ *
+ * @author mj
+ * @className SyntheticCamera
+ * @date 2026/10/19
+ * @description 使用 mpeg2video 编码，尽量少占用 CPU，避免干扰被测推流的 CPU 统计
+ */
+public class SyntheticCamera implements Runnable {
+    /**
+     * 背景图案水平滚动的周期（像素），让编码器有真实的运动估计负载
+     */
+    private static final int PATTERN_PERIOD = 256;
+
+    private final String udpUrl;
+    private final int width;
+    private final int height;
+    private final int fps;
+    private volatile boolean running = true;
+
+    public SyntheticCamera(int port, int width, int height, int fps) {
+        this.udpUrl = "udp://127.0.0.1:" + port + "?pkt_size=1316";
+        this.width = Math.max(width, FrameStamp.MIN_WIDTH);
+        this.height = Math.max(height, FrameStamp.MIN_HEIGHT);
+        this.fps = fps;
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(udpUrl, width, height, 0);
+        recorder.setFormat("mpegts");
+        recorder.setVideoCodec(avcodec.AV_CODEC_ID_MPEG2VIDEO);
+        recorder.setPixelFormat(avutil.AV_PIX_FMT_YUV420P);
+        recorder.setFrameRate(fps);
+        recorder.setGopSize(fps);
+        recorder.setVideoQuality(2);
+        Frame frame = new Frame(width, height, Frame.DEPTH_UBYTE, 3);
+        byte[] pattern = buildPattern();
+        byte[] row = new byte[width * 3];
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / fps;
+        try {
+            recorder.start();
+            long next = System.nanoTime();
+            long frameNo = 0;
+            while (running && !Thread.currentThread().isInterrupted()) {
+                fillBackground(frame, pattern, row, (int) (frameNo % PATTERN_PERIOD));
+                FrameStamp.write(frame, System.currentTimeMillis());
+                recorder.record(frame);
+                frameNo++;
+                next += intervalNanos;
+                long sleep = next - System.nanoTime();
+                if (sleep > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("合成摄像头异常 " + udpUrl + ": " + e.getMessage());
+        } finally {
+            try {
+                recorder.stop();
+                recorder.release();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * 预生成一行宽度为 width + PATTERN_PERIOD 的斜条纹，每帧按偏移拷贝
+     */
+    private byte[] buildPattern() {
+        int patternWidth = width + PATTERN_PERIOD;
+        byte[] pattern = new byte[patternWidth * 3];
+        for (int x = 0; x < patternWidth; x++) {
+            pattern[x * 3] = (byte) (x * 3);
+            pattern[x * 3 + 1] = (byte) (x * 5);
+            pattern[x * 3 + 2] = (byte) (x * 7);
+        }
+        return pattern;
+    }
+
+    private void fillBackground(Frame frame, byte[] pattern, byte[] row, int offset) {
+        ByteBuffer buf = (ByteBuffer) frame.image[0];
+        int stride = frame.imageStride;
+        for (int y = 0; y < height; y++) {
+            // 每行再错开 y 个像素，形成斜向运动的条纹
+            int start = ((offset + y) % PATTERN_PERIOD) * 3;
+            System.arraycopy(pattern, start, row, 0, row.length);
+            buf.position(y * stride);
+            buf.put(row);
+        }
+        buf.position(0);
+    }
+}